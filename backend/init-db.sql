@@ -68,3 +68,13 @@ USE bluff_master;
 --     FOREIGN KEY (round_id) REFERENCES game_rounds(id) ON DELETE CASCADE
 -- );
 
+
+-- CREATE TABLE IF NOT EXISTS stored_images (
+--     id VARCHAR(64) PRIMARY KEY,            -- 壓縮後內容的 SHA-256，同時是儲存檔名
+--     source_hash VARCHAR(64) NOT NULL,      -- 原始上傳內容的 SHA-256
+--     url TEXT NOT NULL,
+--     ref_count INT NOT NULL DEFAULT 1,      -- 引用此圖片的玩家圖片數
+--     created_at DATETIME NOT NULL,
+--     updated_at DATETIME NOT NULL,
+--     INDEX idx_stored_images_source_hash (source_hash)
+-- );
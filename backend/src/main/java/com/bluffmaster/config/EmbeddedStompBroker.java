@@ -0,0 +1,54 @@
+package com.bluffmaster.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+/**
+ * 內嵌的 Artemis STOMP 訊息代理（game.broker.mode=relay 且 game.broker.relay.embedded=true）
+ * 在本機開發或測試時代替外部訊息代理，只保存在記憶體中、不啟用帳號驗證；
+ * /topic/ 開頭的目的地以廣播（multicast）方式投遞，/queue/ 開頭的以點對點（anycast）方式投遞，
+ * 與 simple broker 的語意一致。在 STOMP relay 連線之前啟動，relay 斷線後會自動重連；
+ * Artemis 不在正式的 jar 中（pom 的 provided 依賴），需要時以 -Pdev 建置
+ */
+@Component
+@ConditionalOnClass(name = "org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ")
+@ConditionalOnExpression("'${game.broker.mode:simple}' == 'relay' && ${game.broker.relay.embedded:false}")
+@Slf4j
+public class EmbeddedStompBroker {
+
+    @Value("${game.broker.relay.host:localhost}")
+    private String host;
+
+    @Value("${game.broker.relay.port:61613}")
+    private int port;
+
+    private EmbeddedActiveMQ broker;
+
+    @PostConstruct
+    public void start() throws Exception {
+        ConfigurationImpl configuration = new ConfigurationImpl();
+        configuration.setName("bluffmaster-embedded");
+        configuration.setPersistenceEnabled(false);
+        configuration.setSecurityEnabled(false);
+        configuration.setJMXManagementEnabled(false);
+        configuration.addAcceptorConfiguration("stomp", "tcp://" + host + ":" + port
+                + "?protocols=STOMP;anycastPrefix=/queue/;multicastPrefix=/topic/");
+
+        broker = new EmbeddedActiveMQ();
+        broker.setConfiguration(configuration);
+        broker.start();
+        log.info("內嵌 STOMP 訊息代理已啟動: {}:{}", host, port);
+    }
+
+    @PreDestroy
+    public void stop() throws Exception {
+        broker.stop();
+    }
+}
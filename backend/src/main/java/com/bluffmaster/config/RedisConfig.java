@@ -0,0 +1,28 @@
+package com.bluffmaster.config;
+
+import com.bluffmaster.websocket.RedisBroadcastListener;
+import com.bluffmaster.websocket.RoomBroadcaster;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * 多節點模式（game.state.store=redis）：房間狀態保存在 Redis，廣播經由 Redis pub/sub 分發到所有節點
+ */
+@Configuration
+@ConditionalOnProperty(name = "game.state.store", havingValue = "redis")
+public class RedisConfig {
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       RoomBroadcaster roomBroadcaster) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(new RedisBroadcastListener(roomBroadcaster),
+                new ChannelTopic(RoomBroadcaster.CHANNEL));
+        return container;
+    }
+}
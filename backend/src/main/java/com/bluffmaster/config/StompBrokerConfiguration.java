@@ -0,0 +1,31 @@
+package com.bluffmaster.config;
+
+import com.bluffmaster.websocket.MeteredSubProtocolWebSocketHandler;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.config.annotation.DelegatingWebSocketMessageBrokerConfiguration;
+
+/**
+ * STOMP 訊息代理設定（取代 @EnableWebSocketMessageBroker）
+ * 其餘設定仍由 WebSocketConfig 等 WebSocketMessageBrokerConfigurer 提供，
+ * 這裡只把 WebSocket 處理器換成會輸出每個連線發送緩衝指標的版本
+ */
+@Configuration
+public class StompBrokerConfiguration extends DelegatingWebSocketMessageBrokerConfiguration {
+
+    private final MeterRegistry meterRegistry;
+
+    public StompBrokerConfiguration(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Bean
+    @Override
+    public WebSocketHandler subProtocolWebSocketHandler(AbstractSubscribableChannel clientInboundChannel,
+                                                        AbstractSubscribableChannel clientOutboundChannel) {
+        return new MeteredSubProtocolWebSocketHandler(clientInboundChannel, clientOutboundChannel, meterRegistry);
+    }
+}
@@ -0,0 +1,57 @@
+package com.bluffmaster.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 虛擬執行緒模式（spring.threads.virtual.enabled=true，需要 Java 21 以上）
+ * Spring Boot 自行把 Tomcat 的請求處理與 @Scheduled 排程切換為虛擬執行緒；
+ * STOMP 通道與房間命令信箱等自建的執行緒池經由這裡改用虛擬執行緒，池大小只作為並行上限。
+ * 執行環境低於 Java 21 時記錄警告並繼續使用平台執行緒
+ */
+@Component
+@Slf4j
+public class VirtualThreadSupport {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean requested;
+
+    @Value("${game.virtual-threads.concurrency:256}")
+    private int concurrency;
+
+    private boolean enabled;
+
+    @PostConstruct
+    public void init() {
+        enabled = requested && JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE);
+        if (requested && !enabled) {
+            log.warn("已啟用虛擬執行緒模式，但執行環境為 Java {}（需要 21 以上），繼續使用平台執行緒",
+                    JavaVersion.getJavaVersion());
+        } else if (enabled) {
+            log.info("虛擬執行緒模式已啟用，STOMP 通道與房間命令的並行上限: {}", concurrency);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 虛擬執行緒模式下讓執行緒池以虛擬執行緒執行任務（需在 initialize 之前調用），平台模式下不做任何事
+     */
+    public void apply(ThreadPoolTaskExecutor executor, String threadNamePrefix) {
+        if (!enabled) {
+            return;
+        }
+        executor.setThreadFactory(new VirtualThreadTaskExecutor(threadNamePrefix).getVirtualThreadFactory());
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        // 虛擬執行緒不需要保留，閒置時全部回收
+        executor.setAllowCoreThreadTimeOut(true);
+    }
+}
@@ -28,6 +28,8 @@ public class WebMvcConfig implements WebMvcConfigurer {
                 
                 // 注意：由於 server.servlet.context-path=/api，所以路徑應該是 /api/images/**
                 // 但 ResourceHandler 會自動處理 context-path
+                // 單層的 /images/{fileName} 由 ImageController 處理（immutable 快取、Range、sendfile），
+                // 這裡只處理其他路徑
                 registry.addResourceHandler("/images/**")
                         .addResourceLocations(resourceLocation)
                         .setCachePeriod(3600); // 緩存 1 小時
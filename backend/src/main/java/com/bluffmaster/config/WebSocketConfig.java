@@ -1,18 +1,95 @@
 package com.bluffmaster.config;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
-import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * STOMP 端點、通道與傳輸設定（訊息代理本身由 StompBrokerConfiguration 啟用）
+ * game.broker.mode=simple 時訂閱與廣播在本機記憶體中處理；relay 時轉交外部 STOMP 訊息代理（例如 Artemis），
+ * 多個節點可共用同一組訂閱，廣播的 CPU 成本也移出遊戲節點；
+ * 入站與出站通道使用有界佇列：入站佇列滿時由提交訊息的執行緒自行處理（背壓）；
+ * 出站保持每個連線的發送順序（preservePublishOrder），佇列滿時丟棄該訊息並計數，發布者不會自行寫入 socket，
+ * 遺失的增量更新由客戶端依版本號不連續重新取得快照；
+ * 每個連線的發送緩衝與單次發送時間有上限，接收太慢的客戶端會被斷開，不會拖住整個房間的廣播
+ */
 @Configuration
-@EnableWebSocketMessageBroker
+@RequiredArgsConstructor
+@Slf4j
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final VirtualThreadSupport virtualThreadSupport;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${game.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${game.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${game.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${game.broker.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${game.broker.relay.passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${game.websocket.inbound.pool-size:0}")
+    private int inboundPoolSize;
+
+    @Value("${game.websocket.inbound.queue-capacity:1000}")
+    private int inboundQueueCapacity;
+
+    @Value("${game.websocket.outbound.pool-size:0}")
+    private int outboundPoolSize;
+
+    @Value("${game.websocket.outbound.queue-capacity:1000}")
+    private int outboundQueueCapacity;
+
+    @Value("${game.websocket.send-time-limit:5000}")
+    private int sendTimeLimit;
+
+    @Value("${game.websocket.send-buffer-size-limit:262144}")
+    private int sendBufferSizeLimit;
+
+    @Value("${game.websocket.message-size-limit:65536}")
+    private int messageSizeLimit;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic", "/queue");
+        if ("relay".equals(brokerMode)) {
+            // 訂閱比對與廣播由外部訊息代理負責，所有節點共用同一組 /topic 目的地
+            config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    .setUserDestinationBroadcast("/topic/unresolved-user")
+                    .setUserRegistryBroadcast("/topic/user-registry");
+            log.info("STOMP broker relay 模式: {}:{}", relayHost, relayPort);
+        } else {
+            config.enableSimpleBroker("/topic", "/queue");
+        }
+        // 同一連線的訊息依發布順序逐一發送（出站通道多執行緒時仍保持順序）
+        config.setPreservePublishOrder(true);
         config.setApplicationDestinationPrefixes("/app");
         config.setUserDestinationPrefix("/user");
     }
@@ -25,5 +102,61 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setHeartbeatTime(25000)
                 .setDisconnectDelay(5000);
     }
-}
 
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // 超過任一上限時 Spring 直接關閉該連線（SESSION_NOT_RELIABLE），由斷線事件處理玩家離線
+        registration.setSendTimeLimit(sendTimeLimit)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setMessageSizeLimit(messageSizeLimit);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor(channelExecutor("inbound", inboundPoolSize, inboundQueueCapacity,
+                new ThreadPoolExecutor.CallerRunsPolicy()));
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // 不能由發布者執行（會在發布者的執行緒上寫 socket 並打亂順序），也不能靜默丟棄（保持順序的發送會一直等待該訊息）；
+        // 拋出異常後 Spring 記錄錯誤並繼續發送該連線的下一則訊息
+        Counter rejected = Counter.builder("game.websocket.channel.rejected")
+                .description("STOMP 通道佇列已滿而丟棄的訊息數")
+                .tag("channel", "outbound")
+                .register(meterRegistry);
+        registration.taskExecutor(channelExecutor("outbound", outboundPoolSize, outboundQueueCapacity,
+                (task, pool) -> {
+                    rejected.increment();
+                    throw new RejectedExecutionException("STOMP 出站佇列已滿，丟棄訊息");
+                }));
+    }
+
+    /**
+     * 通道執行緒池（由 Spring 作為 bean 初始化），佇列深度與執行中的任務數輸出為指標
+     */
+    private ThreadPoolTaskExecutor channelExecutor(String channel, int poolSize, int queueCapacity,
+                                                   RejectedExecutionHandler rejectedExecutionHandler) {
+        // 與 Spring 預設相同：0 表示 CPU 核心數 x 2
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors() * 2;
+        String threadNamePrefix = "ws-" + channel + "-";
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setRejectedExecutionHandler(rejectedExecutionHandler);
+        virtualThreadSupport.apply(executor, threadNamePrefix);
+
+        Gauge.builder("game.websocket.channel.queued", executor, ThreadPoolTaskExecutor::getQueueSize)
+                .description("STOMP 通道佇列中等待處理的訊息數")
+                .tag("channel", channel)
+                .register(meterRegistry);
+        Gauge.builder("game.websocket.channel.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .description("STOMP 通道正在處理訊息的執行緒數")
+                .tag("channel", channel)
+                .register(meterRegistry);
+        log.info("STOMP {} 通道執行緒數: {}, 佇列容量: {}", channel, executor.getMaxPoolSize(), queueCapacity);
+        return executor;
+    }
+}
@@ -3,6 +3,7 @@ package com.bluffmaster.controller;
 import com.bluffmaster.dto.GameRoundDTO;
 import com.bluffmaster.dto.VoteRequest;
 import com.bluffmaster.service.GameService;
+import com.bluffmaster.service.RoundPhaseScheduler;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -14,6 +15,7 @@ import org.springframework.web.bind.annotation.*;
 public class GameController {
 
     private final GameService gameService;
+    private final RoundPhaseScheduler roundPhaseScheduler;
 
     @PostMapping("/rooms/{roomId}/rounds/start")
     public ResponseEntity<GameRoundDTO> startRound(@PathVariable String roomId) {
@@ -38,25 +40,25 @@ public class GameController {
 
     @PostMapping("/rounds/{roundId}/start-voting")
     public ResponseEntity<GameRoundDTO> startVoting(@PathVariable String roundId) {
-        GameRoundDTO round = gameService.startVoting(roundId);
+        GameRoundDTO round = roundPhaseScheduler.startVoting(roundId);
         return ResponseEntity.ok(round);
     }
 
     @PostMapping("/rounds/{roundId}/reveal")
     public ResponseEntity<GameRoundDTO> revealResult(@PathVariable String roundId) {
-        GameRoundDTO round = gameService.revealResult(roundId);
+        GameRoundDTO round = roundPhaseScheduler.reveal(roundId);
         return ResponseEntity.ok(round);
     }
 
     @PostMapping("/rounds/{roundId}/finish")
     public ResponseEntity<GameRoundDTO> finishRound(@PathVariable String roundId) {
-        GameRoundDTO round = gameService.finishRound(roundId);
+        GameRoundDTO round = roundPhaseScheduler.finish(roundId);
         return ResponseEntity.ok(round);
     }
 
     @PostMapping("/players/{playerId}/disconnect")
     public ResponseEntity<Void> handleDisconnect(@PathVariable String playerId) {
-        gameService.handlePlayerDisconnect(playerId);
+        roundPhaseScheduler.playerDisconnected(playerId);
         return ResponseEntity.ok().build();
     }
 
@@ -1,11 +1,20 @@
 package com.bluffmaster.controller;
 
+import com.bluffmaster.dto.UploadJobDTO;
+import com.bluffmaster.service.ImageFileServer;
 import com.bluffmaster.service.ImageService;
+import com.bluffmaster.service.ImageUpload;
+import com.bluffmaster.service.UploadJobService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -14,6 +23,18 @@ import java.util.List;
 public class ImageController {
 
     private final ImageService imageService;
+    private final UploadJobService uploadJobService;
+    private final ImageFileServer imageFileServer;
+
+    /**
+     * 本地模式的圖片下載（長期快取、支援 Range）
+     */
+    @GetMapping("/{fileName:.+}")
+    public void getImage(@PathVariable String fileName,
+                         HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+        imageFileServer.serve(fileName, request, response);
+    }
 
     @PostMapping("/players/{playerId}/upload")
     public ResponseEntity<List<String>> uploadImages(
@@ -28,6 +49,53 @@ public class ImageController {
         }
     }
 
+    /**
+     * 非同步上傳：接收文件後立即返回任務，壓縮進度與結果廣播到 /topic/room/{roomId}/upload
+     */
+    @PostMapping("/players/{playerId}/upload-jobs")
+    public ResponseEntity<UploadJobDTO> submitUploadJob(
+            @PathVariable String playerId,
+            @RequestParam("files") List<MultipartFile> files) {
+        try {
+            UploadJobDTO job = uploadJobService.submit(playerId, files);
+            if (job.getStatus() == UploadJobDTO.JobStatus.FAILED) {
+                // 任務佇列已滿，客戶端稍後重試
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "5")
+                        .body(job);
+            }
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (Exception e) {
+            throw new RuntimeException("上傳圖片失敗: " + e.getMessage(), e);
+        }
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<UploadJobDTO> getUploadJob(@PathVariable String jobId) {
+        return uploadJobService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * 串流上傳單張圖片：請求內容即圖片本身（Content-Type 為 image/*），
+     * 直接從請求串流解碼，不經過 multipart 解析與暫存檔
+     */
+    @PostMapping("/players/{playerId}/upload-stream")
+    public ResponseEntity<List<String>> uploadImageStream(
+            @PathVariable String playerId,
+            @RequestHeader(value = "X-File-Name", required = false) String fileName,
+            HttpServletRequest request) {
+        try {
+            ImageUpload upload = new ImageUpload(fileName, request.getContentType(),
+                    request.getContentLengthLong(), request::getInputStream, false);
+            List<String> imageUrls = imageService.uploadImage(playerId, upload);
+            return ResponseEntity.ok(imageUrls);
+        } catch (Exception e) {
+            throw new RuntimeException("上傳圖片失敗: " + e.getMessage(), e);
+        }
+    }
+
     @DeleteMapping("/players/{playerId}")
     public ResponseEntity<Void> deletePlayerImages(@PathVariable String playerId) {
         imageService.deletePlayerImages(playerId);
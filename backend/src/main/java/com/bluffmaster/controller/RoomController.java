@@ -1,15 +1,18 @@
 package com.bluffmaster.controller;
 
 import com.bluffmaster.dto.*;
+import com.bluffmaster.model.Room;
 import com.bluffmaster.service.RoomService;
+import com.bluffmaster.websocket.RoomUpdatePublisher;
 import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/rooms")
 @RequiredArgsConstructor
@@ -17,7 +20,7 @@ import org.springframework.web.bind.annotation.*;
 public class RoomController {
 
     private final RoomService roomService;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final RoomUpdatePublisher roomUpdatePublisher;
     
     private static final String SESSION_PLAYER_ID = "playerId";
     private static final String SESSION_ROOM_ID = "roomId";
@@ -93,8 +96,12 @@ public class RoomController {
             }
         }
         
-        // 廣播房間更新，通知其他玩家有新玩家加入
-        messagingTemplate.convertAndSend("/topic/room/" + room.getId(), room);
+        // 廣播房間更新，通知其他玩家有新玩家加入（只發送新玩家的資料）
+        room.getPlayers().stream()
+                .filter(p -> p.getNickname().equals(request.getNickname()))
+                .findFirst()
+                .ifPresent(newPlayer ->
+                        roomUpdatePublisher.publishPlayer(room.getId(), room.getVersion(), PlayerDeltaDTO.of(newPlayer)));
         log.info("廣播房間更新: 房間 {} 有新玩家加入", room.getId());
         
         return ResponseEntity.ok(room);
@@ -146,11 +153,10 @@ public class RoomController {
     public ResponseEntity<Void> playerReady(
             @PathVariable String roomId,
             @PathVariable String playerId) {
-        roomService.playerReady(playerId);
+        long version = roomService.playerReady(playerId);
         
         // 廣播房間更新
-        RoomDTO room = roomService.getRoom(roomId);
-        messagingTemplate.convertAndSend("/topic/room/" + roomId, room);
+        roomUpdatePublisher.publishPlayer(roomId, version, PlayerDeltaDTO.builder().id(playerId).isReady(true).build());
         
         return ResponseEntity.ok().build();
     }
@@ -159,11 +165,10 @@ public class RoomController {
     public ResponseEntity<Void> playerCancelReady(
             @PathVariable String roomId,
             @PathVariable String playerId) {
-        roomService.playerCancelReady(playerId);
+        long version = roomService.playerCancelReady(playerId);
         
         // 廣播房間更新
-        RoomDTO room = roomService.getRoom(roomId);
-        messagingTemplate.convertAndSend("/topic/room/" + roomId, room);
+        roomUpdatePublisher.publishPlayer(roomId, version, PlayerDeltaDTO.builder().id(playerId).isReady(false).build());
         
         return ResponseEntity.ok().build();
     }
@@ -173,7 +178,8 @@ public class RoomController {
             @PathVariable String roomId,
             @PathVariable String playerId,
             @RequestBody String newNickname) {
-        roomService.updatePlayerNickname(playerId, newNickname);
+        long version = roomService.updatePlayerNickname(playerId, newNickname);
+        roomUpdatePublisher.publishPlayer(roomId, version, PlayerDeltaDTO.builder().id(playerId).nickname(newNickname).build());
         return ResponseEntity.ok().build();
     }
 
@@ -182,7 +188,12 @@ public class RoomController {
             @PathVariable String roomId,
             @PathVariable String hostId,
             @PathVariable String targetPlayerId) {
-        roomService.kickPlayer(hostId, targetPlayerId);
+        long version = roomService.kickPlayer(hostId, targetPlayerId);
+        roomUpdatePublisher.publish(RoomDeltaDTO.builder()
+                .roomId(roomId)
+                .version(version)
+                .removedPlayerIds(List.of(targetPlayerId))
+                .build());
         return ResponseEntity.ok().build();
     }
 
@@ -190,11 +201,14 @@ public class RoomController {
     public ResponseEntity<Void> startGame(
             @PathVariable String roomId,
             @PathVariable String hostId) {
-        roomService.startGame(hostId);
+        long version = roomService.startGame(hostId);
         
         // 廣播房間更新，通知所有玩家遊戲已開始
-        RoomDTO room = roomService.getRoom(roomId);
-        messagingTemplate.convertAndSend("/topic/room/" + roomId, room);
+        roomUpdatePublisher.publish(RoomDeltaDTO.builder()
+                .roomId(roomId)
+                .version(version)
+                .status(Room.RoomStatus.PLAYING)
+                .build());
         log.info("廣播房間更新: 房間 {} 遊戲已開始", roomId);
         
         return ResponseEntity.ok().build();
@@ -218,8 +232,17 @@ public class RoomController {
         session.removeAttribute(SESSION_ROOM_ID);
         log.info("玩家 {} 已離開房間 {}，session 已清除", playerId, roomId);
         
-        // 廣播房間更新，通知其他玩家
-        messagingTemplate.convertAndSend("/topic/room/" + roomId, updatedRoom);
+        // 廣播房間更新，通知其他玩家（離開的玩家與可能轉移的房主）
+        String newHostId = updatedRoom.getHostId();
+        roomUpdatePublisher.publish(RoomDeltaDTO.builder()
+                .roomId(roomId)
+                .version(updatedRoom.getVersion())
+                .removedPlayerIds(List.of(playerId))
+                .hostId(newHostId)
+                .players(newHostId != null
+                        ? List.of(PlayerDeltaDTO.builder().id(newHostId).isHost(true).build())
+                        : null)
+                .build());
         log.info("廣播房間更新: 房間 {} 有玩家退出", roomId);
         
         return ResponseEntity.ok(updatedRoom);
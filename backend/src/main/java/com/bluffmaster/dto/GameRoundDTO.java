@@ -1,6 +1,7 @@
 package com.bluffmaster.dto;
 
 import com.bluffmaster.model.GameRound;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -27,5 +28,7 @@ public class GameRoundDTO {
     private Boolean isFinished;
     private Integer votingTimeLeft;  // 剩餘投票時間（秒）
     private Map<String, VoteResult> voteResults;  // 每個玩家的投票結果和得分變化
+    @JsonIgnore
+    private boolean transitioned;  // 本次呼叫完成了階段轉換（重複請求為 false），排程據此只廣播一次
 }
 
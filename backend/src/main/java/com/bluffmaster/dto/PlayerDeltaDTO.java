@@ -0,0 +1,42 @@
+package com.bluffmaster.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 玩家的增量更新，只有變更的欄位有值（null 欄位不會序列化）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PlayerDeltaDTO {
+    private String id;
+    private String nickname;
+    private Boolean isHost;
+    private Boolean isReady;
+    private Integer score;
+    private List<String> imageUrls;
+    private Boolean isOnline;
+
+    /**
+     * 新加入玩家的完整資料
+     */
+    public static PlayerDeltaDTO of(PlayerDTO player) {
+        return PlayerDeltaDTO.builder()
+                .id(player.getId())
+                .nickname(player.getNickname())
+                .isHost(player.getIsHost())
+                .isReady(player.getIsReady())
+                .score(player.getScore())
+                .imageUrls(player.getImageUrls())
+                .isOnline(player.getIsOnline())
+                .build();
+    }
+}
@@ -22,5 +22,6 @@ public class RoomDTO {
     private Integer currentRound;
     private Integer totalRounds;
     private String hostId;
+    private Long version;  // 快照對應的房間版本號，之後的增量更新從 version + 1 開始
 }
 
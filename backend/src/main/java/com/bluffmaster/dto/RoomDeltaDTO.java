@@ -0,0 +1,33 @@
+package com.bluffmaster.dto;
+
+import com.bluffmaster.model.Room;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 房間的增量更新（廣播到 /topic/room/{roomId}）
+ * 只包含變更的房間欄位與玩家欄位；客戶端只在 version 等於本地版本 + 1 時套用，否則重新取得完整快照
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RoomDeltaDTO {
+    public static final String TYPE = "DELTA";
+
+    @Builder.Default
+    private String type = TYPE;  // 與完整的 RoomDTO 快照區分
+    private String roomId;
+    private Long version;
+    private Room.RoomStatus status;
+    private Integer currentRound;
+    private String hostId;
+    private List<PlayerDeltaDTO> players;     // 新增或變更的玩家
+    private List<String> removedPlayerIds;    // 離開或被踢出的玩家
+}
@@ -0,0 +1,29 @@
+package com.bluffmaster.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadJobDTO {
+    private String jobId;
+    private String playerId;
+    private String roomId;
+    private JobStatus status;
+    private int totalFiles;
+    private int completedFiles;
+    private List<String> imageUrls;  // 完成時為全部圖片（依上傳順序），處理中為已完成的圖片
+    private String error;            // 失敗原因，成功時為 null
+
+    public enum JobStatus {
+        PROCESSING,  // 處理中
+        COMPLETED,   // 已完成並加入玩家圖片列表
+        FAILED       // 失敗（已儲存的圖片已清理）
+    }
+}
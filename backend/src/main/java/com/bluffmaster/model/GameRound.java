@@ -52,6 +52,9 @@ public class GameRound {
     @Column(name = "voted_image_url", columnDefinition = "TEXT")
     private Map<String, String> votes;  // playerId -> imageUrl
 
+    @Column
+    private LocalDateTime votingEndsAt;  // 投票截止時間，到期時由伺服器自動公布結果
+
     @Column(nullable = false)
     private Boolean isFinished;
 
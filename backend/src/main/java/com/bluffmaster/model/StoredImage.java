@@ -0,0 +1,57 @@
+package com.bluffmaster.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 以內容雜湊命名的已儲存圖片
+ * 同一張圖片無論被多少玩家、多少房間上傳都只儲存一份，refCount 為引用它的玩家圖片數，歸零時才刪除檔案
+ */
+@Entity
+@Table(name = "stored_images", indexes = @Index(name = "idx_stored_images_source_hash", columnList = "sourceHash"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredImage {
+    @Id
+    @Column(length = 64)
+    private String id;  // 壓縮後 JPEG 內容的 SHA-256（同時是儲存檔名）
+
+    @Column(nullable = false, length = 64)
+    private String sourceHash;  // 原始上傳內容的 SHA-256，用於在壓縮前找出重複上傳
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String url;
+
+    @Column(nullable = false)
+    private Integer refCount;
+
+    @Column
+    private Long blobGeneration;  // GCS 物件的 generation，刪除時作為前置條件（本地模式為 null）
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+        if (refCount == null) {
+            refCount = 1;
+        }
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -1,13 +1,31 @@
 package com.bluffmaster.repository;
 
 import com.bluffmaster.model.Player;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface PlayerRepository extends JpaRepository<Player, String> {
     List<Player> findByRoomId(String roomId);
-}
 
+    /**
+     * 連同圖片列表一次查出房間內所有玩家（LEFT JOIN player_images），避免逐個玩家延遲載入 imageUrls
+     */
+    @EntityGraph(attributePaths = "imageUrls")
+    @Query("SELECT p FROM Player p WHERE p.roomId = :roomId ORDER BY p.createdAt")
+    List<Player> findWithImagesByRoomId(@Param("roomId") String roomId);
+
+    @Modifying
+    @Query("UPDATE Player p SET p.score = :score, p.isOnline = :isOnline, p.updatedAt = :updatedAt WHERE p.id = :id")
+    int updateGameState(@Param("id") String id,
+                        @Param("score") Integer score,
+                        @Param("isOnline") Boolean isOnline,
+                        @Param("updatedAt") LocalDateTime updatedAt);
+}
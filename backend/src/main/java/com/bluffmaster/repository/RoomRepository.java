@@ -1,13 +1,41 @@
 package com.bluffmaster.repository;
 
 import com.bluffmaster.model.Room;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface RoomRepository extends JpaRepository<Room, String> {
     Optional<Room> findByRoomCode(String roomCode);
-}
 
+    @Query("SELECT r.id FROM Room r WHERE r.roomCode = :roomCode")
+    Optional<String> findIdByRoomCode(@Param("roomCode") String roomCode);
+
+    @Query("SELECT r.id FROM Room r WHERE r.updatedAt < :cutoff ORDER BY r.updatedAt")
+    List<String> findExpiredRoomIds(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Room r WHERE r.id = :id")
+    Optional<Room> findByIdForUpdate(@Param("id") String id);
+
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT r FROM Room r WHERE r.id = :id")
+    Optional<Room> findByIdForShare(@Param("id") String id);
+
+    @Modifying
+    @Query("UPDATE Room r SET r.status = :status, r.currentRound = :currentRound, r.updatedAt = :updatedAt WHERE r.id = :id")
+    int updateGameState(@Param("id") String id,
+                        @Param("status") Room.RoomStatus status,
+                        @Param("currentRound") Integer currentRound,
+                        @Param("updatedAt") LocalDateTime updatedAt);
+}
@@ -0,0 +1,20 @@
+package com.bluffmaster.repository;
+
+import com.bluffmaster.model.StoredImage;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface StoredImageRepository extends JpaRepository<StoredImage, String> {
+    Optional<StoredImage> findFirstBySourceHash(String sourceHash);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM StoredImage s WHERE s.id = :id")
+    Optional<StoredImage> findByIdForUpdate(@Param("id") String id);
+}
@@ -0,0 +1,80 @@
+package com.bluffmaster.service;
+
+import javax.imageio.stream.ImageOutputStreamImpl;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 只能向前寫入的 ImageOutputStream，計算寫入的位元組數並轉發到底層輸出流
+ * 沒有底層輸出流時只計數不保存內容，用於試算 JPEG 編碼後的大小；
+ * 有底層輸出流時把編碼結果直接串流到目的地（例如 GCS 的 WriteChannel），不經過 byte array
+ */
+class ByteCountingImageOutputStream extends ImageOutputStreamImpl {
+
+    private final OutputStream target;
+    private long length;
+
+    ByteCountingImageOutputStream() {
+        this(null);
+    }
+
+    ByteCountingImageOutputStream(OutputStream target) {
+        this.target = target;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        checkPosition();
+        if (target != null) {
+            target.write(b);
+        }
+        streamPos++;
+        length = streamPos;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        checkPosition();
+        if (target != null) {
+            target.write(b, off, len);
+        }
+        streamPos += len;
+        length = streamPos;
+    }
+
+    @Override
+    public int read() {
+        throw new UnsupportedOperationException("只能寫入");
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        throw new UnsupportedOperationException("只能寫入");
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (target != null) {
+            target.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        super.close();
+        if (target != null) {
+            target.close();
+        }
+    }
+
+    private void checkPosition() throws IOException {
+        if (streamPos != length) {
+            throw new IOException("不支援回頭寫入");
+        }
+    }
+}
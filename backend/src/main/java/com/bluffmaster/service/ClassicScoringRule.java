@@ -0,0 +1,37 @@
+package com.bluffmaster.service;
+
+import com.bluffmaster.model.Room;
+import org.springframework.stereotype.Component;
+
+/**
+ * 一般模式與快速模式共用的計分規則
+ * 投中假圖 +1、投錯 0、未投票 -1；
+ * 主講者：沒有人猜中 +3，所有投票的玩家都猜中 -2，其他情況 ceil(投票者數 × 0.5)
+ */
+@Component
+public class ClassicScoringRule implements ScoringRule {
+
+    @Override
+    public boolean supports(Room.GameMode gameMode) {
+        return gameMode == Room.GameMode.NORMAL || gameMode == Room.GameMode.QUICK;
+    }
+
+    @Override
+    public int voterScore(boolean voted, boolean correct) {
+        if (!voted) {
+            return -1;
+        }
+        return correct ? 1 : 0;
+    }
+
+    @Override
+    public int speakerScore(VoteTally tally) {
+        if (tally.correctVotes() == 0) {
+            return 3;
+        }
+        if (tally.actualVoters() > 0 && tally.correctVotes() == tally.actualVoters()) {
+            return -2;
+        }
+        return (int) Math.ceil(tally.eligibleVoters() * 0.5);
+    }
+}
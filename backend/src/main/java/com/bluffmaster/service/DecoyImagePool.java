@@ -0,0 +1,281 @@
+package com.bluffmaster.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.Polygon;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 假圖池
+ * 假圖預先保存在自己的儲存位置（本地模式下經由 /api/images/ 的長期快取路徑提供），每個回合以 O(1) 輪流取出，
+ * 回合開始時不再需要客戶端去外部網站下載並經過重新導向。
+ * 啟動後在背景補足 game.decoy.pool-size 張：依序匯入隨程式附帶的照片（game.decoy.photos）、import-dir 中的圖片，
+ * 開啟 remote-fetch 時從 game.fake-image-url 下載，其餘以 game.decoy.seed 決定性地產生（檔名固定，重啟或多節點不會重複產生）；
+ * 補足後以同一個種子打亂順序，相似的照片不會在連續的回合出現。
+ * next() 在房間的命令執行緒上執行，不等待也不產生圖片：池還是空的（剛啟動）時直接失敗，由玩家稍後重試
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DecoyImagePool {
+
+    private static final int WIDTH = 800;
+    private static final int HEIGHT = 600;
+
+    private final ImageStore imageStore;
+    private final ImageProcessingPool imageProcessingPool;
+    private final ImageDecoder imageDecoder;
+    private final ImageResizer imageResizer;
+    private final JpegEncoder jpegEncoder;
+    private final ImageUrlResolver imageUrlResolver;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${game.decoy.pool-size:32}")
+    private int poolSize;
+
+    @Value("${game.decoy.seed:1}")
+    private long seed;
+
+    @Value("${game.decoy.photos:classpath:decoys/*.jpg}")
+    private String photos;
+
+    @Value("${game.decoy.import-dir:}")
+    private String importDir;
+
+    @Value("${game.decoy.remote-fetch:false}")
+    private boolean remoteFetch;
+
+    @Value("${game.fake-image-url:}")
+    private String remoteUrl;
+
+    // 可使用的假圖 URL，依序輪流取出；補足後整個換成打亂順序的列表
+    private volatile List<String> ready = new CopyOnWriteArrayList<>();
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    private Counter empty;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("game.decoy.pool.ready", this, pool -> pool.ready.size())
+                .description("可使用的假圖數")
+                .register(meterRegistry);
+        empty = Counter.builder("game.decoy.pool.empty")
+                .description("回合開始時假圖池尚未就緒而無法開始的次數")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        imageProcessingPool.submit(() -> {
+            refill();
+            return null;
+        }).exceptionally(e -> {
+            log.error("補充假圖池失敗", e);
+            return null;
+        });
+    }
+
+    /**
+     * 取出下一張假圖；池還是空的（剛啟動，附帶的照片尚未載入）時直接失敗
+     */
+    public String next() {
+        List<String> current = ready;
+        int size = current.size();
+        if (size == 0) {
+            empty.increment();
+            throw new RuntimeException("假圖尚未準備好，請稍後再試");
+        }
+        return current.get(Math.floorMod(cursor.getAndIncrement(), size));
+    }
+
+    private void refill() {
+        if (photos != null && !photos.isBlank()) {
+            importPhotos(photos);
+        }
+        if (importDir != null && !importDir.isBlank()) {
+            importLocal(Paths.get(importDir));
+        }
+        if (remoteFetch && remoteUrl != null && !remoteUrl.isBlank()) {
+            fetchRemote();
+        }
+        int photoCount = ready.size();
+        for (int index = 0; ready.size() < poolSize; index++) {
+            ready.add(generate(index));
+        }
+        List<String> shuffled = new ArrayList<>(ready);
+        Collections.shuffle(shuffled, new Random(seed));
+        ready = new CopyOnWriteArrayList<>(shuffled);
+        log.info("假圖池已就緒，共 {} 張（照片 {} 張）", shuffled.size(), photoCount);
+    }
+
+    private void importPhotos(String pattern) {
+        Resource[] resources;
+        try {
+            resources = new PathMatchingResourcePatternResolver().getResources(pattern);
+        } catch (IOException e) {
+            log.warn("無法讀取附帶的假圖: {}", pattern, e);
+            return;
+        }
+        for (Resource resource : resources) {
+            try (InputStream input = resource.getInputStream()) {
+                add(input.readAllBytes());
+            } catch (Exception e) {
+                log.warn("匯入假圖失敗: {}", resource, e);
+            }
+        }
+    }
+
+    private void importLocal(Path dir) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                if (!Files.isRegularFile(file)) {
+                    continue;
+                }
+                try (InputStream input = Files.newInputStream(file)) {
+                    add(input.readAllBytes());
+                } catch (Exception e) {
+                    log.warn("匯入假圖失敗: {}", file, e);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("無法讀取假圖匯入目錄: {}", dir, e);
+        }
+    }
+
+    private void fetchRemote() {
+        // 在背景執行緒上等待驗證結果；無效的來源在 negative-ttl 內不會重複探測
+        if (!imageUrlResolver.validate(remoteUrl).join()) {
+            log.warn("遠端假圖來源無效: {}", remoteUrl);
+            return;
+        }
+        HttpClient client = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(remoteUrl))
+                .timeout(Duration.ofSeconds(10))
+                .GET()
+                .build();
+        // 外部服務每次返回不同的圖片；失敗或重複多次時放棄
+        int failures = 0;
+        while (ready.size() < poolSize && failures < 3) {
+            try {
+                HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                if (response.statusCode() != 200 || !add(response.body())) {
+                    failures++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("下載假圖失敗: {} ({})", remoteUrl, e.getMessage());
+                failures++;
+            }
+        }
+    }
+
+    /**
+     * 把外部圖片縮放為假圖尺寸後保存，以內容雜湊命名（相同圖片只保存一次）；無法解碼或已在池中時返回 false
+     */
+    private boolean add(byte[] content) throws IOException {
+        ImageDecoder.DecodedImage decoded = imageDecoder.decode(new ByteArrayInputStream(content), WIDTH);
+        if (decoded == null || decoded.image() == null) {
+            return false;
+        }
+        BufferedImage image = decoded.image();
+        int height = Math.max(1, (int) ((double) image.getHeight() * WIDTH / image.getWidth()));
+        BufferedImage scaled = imageResizer.resize(image, WIDTH, height);
+
+        String hash = HexFormat.of().formatHex(ImageStore.newDigest().digest(content)).substring(0, 32);
+        String url = imageStore.storeNamed("decoy-" + hash + ".jpg", output -> jpegEncoder.encodeDerived(scaled, output));
+        if (ready.contains(url)) {
+            return false;
+        }
+        ready.add(url);
+        return true;
+    }
+
+    /**
+     * 以種子決定性地產生第 index 張假圖（漸層背景加上隨機的半透明圖形），檔案已存在時不重新產生
+     */
+    private String generate(int index) {
+        return imageStore.storeNamed("decoy-s" + seed + "-" + index + ".jpg", output -> {
+            Random random = new Random(seed * 1_000_003L + index);
+            BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = image.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g.setPaint(new GradientPaint(0, 0, randomColor(random, 255),
+                        WIDTH, HEIGHT, randomColor(random, 255)));
+                g.fillRect(0, 0, WIDTH, HEIGHT);
+
+                int shapes = 8 + random.nextInt(10);
+                for (int i = 0; i < shapes; i++) {
+                    g.setColor(randomColor(random, 80 + random.nextInt(140)));
+                    int x = random.nextInt(WIDTH);
+                    int y = random.nextInt(HEIGHT);
+                    int w = 40 + random.nextInt(WIDTH / 2);
+                    int h = 40 + random.nextInt(HEIGHT / 2);
+                    switch (random.nextInt(4)) {
+                        case 0 -> g.fillOval(x - w / 2, y - h / 2, w, h);
+                        case 1 -> g.fillRect(x - w / 2, y - h / 2, w, h);
+                        case 2 -> {
+                            Polygon polygon = new Polygon();
+                            int points = 3 + random.nextInt(4);
+                            for (int p = 0; p < points; p++) {
+                                polygon.addPoint(x + random.nextInt(w) - w / 2, y + random.nextInt(h) - h / 2);
+                            }
+                            g.fillPolygon(polygon);
+                        }
+                        default -> {
+                            g.setStroke(new BasicStroke(4 + random.nextInt(20)));
+                            g.drawLine(x, y, random.nextInt(WIDTH), random.nextInt(HEIGHT));
+                        }
+                    }
+                }
+            } finally {
+                g.dispose();
+            }
+            jpegEncoder.encodeDerived(image, output);
+        });
+    }
+
+    private static Color randomColor(Random random, int alpha) {
+        return new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256), alpha);
+    }
+}
@@ -8,15 +8,18 @@ import com.bluffmaster.model.Room;
 import com.bluffmaster.repository.GameRoundRepository;
 import com.bluffmaster.repository.PlayerRepository;
 import com.bluffmaster.repository.RoomRepository;
+import com.bluffmaster.state.Ballot;
+import com.bluffmaster.state.GameStateEngine;
+import com.bluffmaster.state.RoomState;
+import com.bluffmaster.state.VoteBuffer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.net.HttpURLConnection;
-import java.net.URI;
-import java.net.URL;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -29,84 +32,111 @@ public class GameService {
     private final PlayerRepository playerRepository;
     private final GameRoundRepository gameRoundRepository;
     private final ImageService imageService;
+    private final GameStateEngine gameStateEngine;
+    private final VoteBuffer voteBuffer;
+    private final ScoringEngine scoringEngine;
+    private final HotImageCache hotImageCache;
+    private final DecoyImagePool decoyImagePool;
 
-    @Value("${game.fake-image-url}")
-    private String fakeImageUrl;
+    @Value("${game.voting-timeout}")
+    private int votingTimeout;
 
-    @Transactional
     public GameRoundDTO startRound(String roomId) {
-        Room room = roomRepository.findById(roomId)
-                .orElseThrow(() -> new RuntimeException("房間不存在"));
+        return gameStateEngine.execute(roomId, state -> {
+            if (state == null) {
+                roomRepository.findById(roomId)
+                        .orElseThrow(() -> new RuntimeException("房間不存在"));
+                throw new RuntimeException("房間不在遊戲狀態");
+            }
 
-        if (room.getStatus() != Room.RoomStatus.PLAYING) {
-            throw new RuntimeException("房間不在遊戲狀態");
-        }
+            Room room = state.getRoom();
+            if (room.getStatus() != Room.RoomStatus.PLAYING) {
+                throw new RuntimeException("房間不在遊戲狀態");
+            }
 
-        List<Player> players = playerRepository.findByRoomId(roomId);
-        List<Player> onlinePlayers = players.stream()
-                .filter(Player::getIsOnline)
-                .collect(Collectors.toList());
+            List<Player> onlinePlayers = state.getPlayerList().stream()
+                    .filter(Player::getIsOnline)
+                    .collect(Collectors.toList());
 
-        if (onlinePlayers.isEmpty()) {
-            throw new RuntimeException("沒有在線玩家");
-        }
+            if (onlinePlayers.isEmpty()) {
+                throw new RuntimeException("沒有在線玩家");
+            }
 
-        // 選擇主講者（輪流）
-        String speakerId = selectSpeaker(room, onlinePlayers);
-        Player speaker = playerRepository.findById(speakerId)
-                .orElseThrow(() -> new RuntimeException("主講者不存在"));
+            // 選擇主講者（輪流）
+            String speakerId = selectSpeaker(room, onlinePlayers);
+            Player speaker = state.getPlayer(speakerId);
 
-        // 檢查主講者是否有足夠的圖片
-        if (speaker.getImageUrls() == null || speaker.getImageUrls().size() < 3) {
-            throw new RuntimeException("主講者需要至少上傳 3 張圖片");
-        }
+            // 檢查主講者是否有足夠的圖片
+            if (speaker.getImageUrls() == null || speaker.getImageUrls().size() < 3) {
+                throw new RuntimeException("主講者需要至少上傳 3 張圖片");
+            }
 
-        // 從主講者的圖片中隨機選3張
-        List<String> speakerImages = new ArrayList<>(speaker.getImageUrls());
-        Collections.shuffle(speakerImages);
-        List<String> selectedImages = new ArrayList<>();
-        
-        // 選擇3張主講者的圖片
-        for (int i = 0; i < 3; i++) {
-            selectedImages.add(speakerImages.get(i));
-        }
+            // 從主講者的圖片中隨機選3張
+            List<String> speakerImages = new ArrayList<>(speaker.getImageUrls());
+            Collections.shuffle(speakerImages);
+            List<String> selectedImages = new ArrayList<>();
 
-        // 生成隨機假圖 URL（使用時間戳和回合數確保每個回合的假圖都不同）
-        // 改用 picsum.photos 的 seed API：同一 seed 會得到同一張圖片，且服務會保證圖片存在
-        // 這樣可避免出現 "Image does not exist" 的無效 URL，同時確保所有玩家看到相同的假圖
-        long uniqueSeed = System.currentTimeMillis() + room.getCurrentRound() * 1000000L;
-        // seed 不能包含特殊字元，使用唯一 seed 確保每輪都不同，但同輪一致
-        String fixedFakeImageUrl = String.format("https://picsum.photos/seed/%d/800/600", uniqueSeed);
-        log.info("生成假圖 URL (seed: {}): {}", uniqueSeed, fixedFakeImageUrl);
-        
-        // 添加1張假圖（非所有玩家的圖片）
-        selectedImages.add(fixedFakeImageUrl);
-        Collections.shuffle(selectedImages);
-
-        // 創建回合
-        GameRound round = GameRound.builder()
-                .roomId(roomId)
-                .roundNumber(room.getCurrentRound() + 1)
-                .speakerId(speakerId)
-                .imageUrls(selectedImages)
-                .fakeImageUrl(fixedFakeImageUrl)  // 使用固定的假圖 URL
-                .phase(GameRound.RoundPhase.STORY_TELLING)
-                .isFinished(false)
-                .build();
+            // 選擇3張主講者的圖片
+            for (int i = 0; i < 3; i++) {
+                selectedImages.add(speakerImages.get(i));
+            }
+
+            // 從假圖池輪流取出（已保存在自己的儲存位置，所有玩家看到相同的假圖）
+            String fixedFakeImageUrl = decoyImagePool.next();
+            log.info("本回合假圖: {}", fixedFakeImageUrl);
+
+            // 添加1張假圖（非所有玩家的圖片）
+            selectedImages.add(fixedFakeImageUrl);
+            Collections.shuffle(selectedImages);
+
+            // 創建回合
+            GameRound round = GameRound.builder()
+                    .roomId(roomId)
+                    .roundNumber(room.getCurrentRound() + 1)
+                    .speakerId(speakerId)
+                    .imageUrls(selectedImages)
+                    .fakeImageUrl(fixedFakeImageUrl)  // 使用固定的假圖 URL
+                    .phase(GameRound.RoundPhase.STORY_TELLING)
+                    .isFinished(false)
+                    .build();
 
-        round = gameRoundRepository.save(round);
+            // 新回合需要立即寫入資料庫以取得 ID，之後的階段變更由狀態引擎非同步寫回
+            round = gameRoundRepository.save(round);
+            gameStateEngine.attachRound(state, round);
+            // 所有玩家會在廣播後同時下載這些圖片，先在背景載入到記憶體
+            hotImageCache.pin(roomId, selectedImages);
 
-        // 更新房間回合數
-        room.setCurrentRound(round.getRoundNumber());
-        roomRepository.save(room);
+            // 更新房間回合數
+            room.setCurrentRound(round.getRoundNumber());
+            state.markRoomDirty();
 
-        return convertToDTO(round, speaker.getNickname());
+            return convertToDTO(state.getCurrentRound(), speaker.getNickname());
+        });
     }
 
     public GameRoundDTO getCurrentRound(String roomId) {
+        Optional<GameRoundDTO> live = gameStateEngine.execute(roomId, state -> {
+            if (state == null) {
+                return null;
+            }
+            GameRound round = state.getCurrentRound();
+            if (round == null || round.getIsFinished()) {
+                return Optional.empty();
+            }
+            if (round.getPhase() == GameRound.RoundPhase.VOTING) {
+                mergeVotes(state, voteBuffer.peek(round.getId()));
+            }
+            return Optional.of(convertToDTO(round, speakerNickname(state, round)));
+        });
+        if (live != null) {
+            return live.orElse(null);
+        }
+
+        // 房間不在遊戲中，從資料庫讀取
         Optional<GameRound> currentRound = gameRoundRepository.findByRoomIdAndIsFinishedFalse(roomId);
         if (currentRound.isPresent()) {
-            GameRound round = currentRound.get();
+            GameRound round = gameStateEngine.findRoundSnapshot(currentRound.get().getId())
+                    .orElseThrow(() -> new RuntimeException("回合不存在"));
             Player speaker = playerRepository.findById(round.getSpeakerId())
                     .orElseThrow(() -> new RuntimeException("主講者不存在"));
             return convertToDTO(round, speaker.getNickname());
@@ -114,321 +144,217 @@ public class GameService {
         return null;
     }
 
-    @Transactional
     public void vote(String playerId, String imageUrl, String roundId) {
-        GameRound round = gameRoundRepository.findById(roundId)
-                .orElseThrow(() -> new RuntimeException("回合不存在"));
-
-        if (round.getIsFinished()) {
-            throw new RuntimeException("投票已結束");
+        // 投票階段的選票直接寫入投票緩衝區，不取得房間鎖
+        if (voteBuffer.offer(roundId, playerId, imageUrl)) {
+            return;
         }
 
-        if (round.getPhase() != GameRound.RoundPhase.VOTING) {
-            throw new RuntimeException("當前階段不能投票");
-        }
+        gameStateEngine.executeOnRound(roundId, state -> {
+            if (state == null) {
+                requireRoundSnapshot(roundId);
+                throw new RuntimeException("投票已結束");
+            }
 
-        Player player = playerRepository.findById(playerId)
-                .orElseThrow(() -> new RuntimeException("玩家不存在"));
+            GameRound round = state.getCurrentRound();
+            if (round.getIsFinished()) {
+                throw new RuntimeException("投票已結束");
+            }
 
-        if (!player.getRoomId().equals(round.getRoomId())) {
-            throw new RuntimeException("玩家不在該房間");
-        }
+            if (round.getPhase() != GameRound.RoundPhase.VOTING) {
+                throw new RuntimeException("當前階段不能投票");
+            }
 
-        // 如果是主講者，選擇說謊圖片
-        if (round.getSpeakerId().equals(playerId)) {
-            // 檢查圖片是否在主講者的圖片中
-            Player speaker = playerRepository.findById(round.getSpeakerId())
-                    .orElseThrow(() -> new RuntimeException("主講者不存在"));
-            if (!speaker.getImageUrls().contains(imageUrl)) {
-                throw new RuntimeException("無效的圖片選項");
+            // 投票表尚未開啟（例如服務重啟後從資料庫載入的回合），在房間鎖內開啟後寫入
+            voteBuffer.open(Ballot.of(state));
+            if (!voteBuffer.offer(roundId, playerId, imageUrl)) {
+                throw new RuntimeException("投票已結束");
             }
-            round.setSpeakerFakeImageUrl(imageUrl);
-        } else {
-            // 其他玩家投票
-            // 檢查圖片是否在選項中
-            if (!round.getImageUrls().contains(imageUrl)) {
-                throw new RuntimeException("無效的圖片選項");
+            return null;
+        });
+    }
+
+    /**
+     * 定期把投票緩衝區的選票合併到回合狀態，由狀態引擎寫回資料庫；
+     * 回合已不在投票階段（或已不存在）時關閉投票表
+     */
+    @Scheduled(fixedDelayString = "${game.vote-merge-interval:1000}")
+    public void mergeBufferedVotes() {
+        for (String roundId : voteBuffer.openRoundIds()) {
+            try {
+                gameStateEngine.executeOnRound(roundId, state -> {
+                    if (state == null) {
+                        voteBuffer.close(roundId);
+                        return null;
+                    }
+                    GameRound round = state.getCurrentRound();
+                    if (round.getPhase() == GameRound.RoundPhase.VOTING) {
+                        mergeVotes(state, voteBuffer.peek(roundId));
+                    } else {
+                        mergeVotes(state, voteBuffer.close(roundId));
+                    }
+                    return null;
+                });
+            } catch (Exception e) {
+                log.warn("合併回合 {} 的選票失敗", roundId, e);
             }
-            round.getVotes().put(playerId, imageUrl);
         }
-
-        gameRoundRepository.save(round);
     }
 
-    @Transactional
     public GameRoundDTO startVoting(String roundId) {
-        GameRound round = gameRoundRepository.findById(roundId)
-                .orElseThrow(() -> new RuntimeException("回合不存在"));
-
-        if (round.getIsFinished()) {
-            throw new RuntimeException("回合已結束");
-        }
+        return gameStateEngine.executeOnRound(roundId, state -> {
+            GameRound round = requireLiveRound(state, roundId);
 
-        if (round.getPhase() != GameRound.RoundPhase.QUESTIONING) {
-            throw new RuntimeException("當前階段不能開始投票");
-        }
-
-        round.setPhase(GameRound.RoundPhase.VOTING);
-        round = gameRoundRepository.save(round);
+            if (round.getPhase() != GameRound.RoundPhase.QUESTIONING) {
+                throw new RuntimeException("當前階段不能開始投票");
+            }
 
-        // 強制加載懶加載的集合，避免 LazyInitializationException
-        if (round.getImageUrls() != null) {
-            round.getImageUrls().size(); // 觸發加載
-        }
-        if (round.getVotes() != null) {
-            round.getVotes().size(); // 觸發加載
-        }
+            round.setPhase(GameRound.RoundPhase.VOTING);
+            round.setVotingEndsAt(LocalDateTime.now().plusSeconds(votingTimeout));
+            state.markRoundDirty();
+            voteBuffer.open(Ballot.of(state));
 
-        Player speaker = playerRepository.findById(round.getSpeakerId())
-                .orElseThrow(() -> new RuntimeException("主講者不存在"));
-        return convertToDTO(round, speaker.getNickname());
+            return convertToDTO(round, speakerNickname(state, round));
+        });
     }
 
-    @Transactional
     public GameRoundDTO revealResult(String roundId) {
-        GameRound round = gameRoundRepository.findById(roundId)
-                .orElseThrow(() -> new RuntimeException("回合不存在"));
-
-        if (round.getIsFinished()) {
-            // 強制加載懶加載的集合
-            if (round.getImageUrls() != null) {
-                round.getImageUrls().size();
-            }
-            if (round.getVotes() != null) {
-                round.getVotes().size();
+        return gameStateEngine.executeOnRound(roundId, state -> {
+            if (state == null) {
+                // 回合已結束且不在記憶體中
+                return convertToDTO(requireRoundSnapshot(roundId), null);
             }
-            return convertToDTO(round, null);
-        }
-
-        if (round.getPhase() != GameRound.RoundPhase.VOTING) {
-            throw new RuntimeException("當前階段不能公布結果");
-        }
 
-        round.setPhase(GameRound.RoundPhase.REVEALING);
-        round = gameRoundRepository.save(round);
-
-        // 強制加載懶加載的集合，避免 LazyInitializationException
-        if (round.getImageUrls() != null) {
-            round.getImageUrls().size(); // 觸發加載
-        }
-        if (round.getVotes() != null) {
-            round.getVotes().size(); // 觸發加載
-        }
-
-        Room room = roomRepository.findById(round.getRoomId())
-                .orElseThrow(() -> new RuntimeException("房間不存在"));
-        List<Player> players = playerRepository.findByRoomId(room.getId());
-        Player speaker = playerRepository.findById(round.getSpeakerId())
-                .orElseThrow(() -> new RuntimeException("主講者不存在"));
-
-        // 計算投票結果（但不保存分數，只是用於顯示）
-        String correctFakeImage = round.getSpeakerFakeImageUrl() != null 
-                ? round.getSpeakerFakeImageUrl() 
-                : round.getFakeImageUrl();
-        
-        int voters = players.size() - 1; // 排除主講者
-        int correctVotes = 0;
-        int actualVoters = 0; // 實際投票的玩家數（不包括未投票的）
-        Map<String, VoteResult> voteResults = new HashMap<>();
+            GameRound round = state.getCurrentRound();
 
-        // 第一遍遍歷：處理非主講者玩家，統計猜中次數
-        for (Player player : players) {
-            if (player.getId().equals(round.getSpeakerId())) {
-                continue; // 跳過主講者，稍後處理
+            if (round.getIsFinished()) {
+                return convertToDTO(round, null);
             }
 
-            String votedImage = round.getVotes().get(player.getId());
-            int scoreChange = 0;
-            boolean isCorrect = false;
-            
-            if (votedImage == null) {
-                // 未投票
-                scoreChange = -1;
-            } else {
-                actualVoters++; // 有投票的玩家
-                if (votedImage.equals(correctFakeImage)) {
-                    // 投中假圖
-                    scoreChange = 1;
-                    isCorrect = true;
-                    correctVotes++;
-                } else {
-                    // 投錯
-                    scoreChange = 0;
-                }
+            if (round.getPhase() == GameRound.RoundPhase.REVEALING) {
+                // 重複的公布請求：結果已公布，返回快取的投票結果
+                GameRoundDTO dto = convertToDTO(round, speakerNickname(state, round));
+                dto.setVoteResults(state.getRoundResults());
+                return dto;
+            }
+            if (round.getPhase() != GameRound.RoundPhase.VOTING) {
+                throw new RuntimeException("當前階段不能公布結果");
             }
-            
-            VoteResult result = VoteResult.builder()
-                    .playerId(player.getId())
-                    .playerNickname(player.getNickname())
-                    .votedImageUrl(votedImage)
-                    .isCorrect(isCorrect)
-                    .scoreChange(scoreChange)
-                    .isSpeaker(false)
-                    .build();
-            voteResults.put(player.getId(), result);
-        }
 
-        // 處理主講者分數（不保存，僅顯示）
-        int speakerScore;
-        if (correctVotes == 0) {
-            // 沒有任何一個玩家猜中，主講者+3分
-            speakerScore = 3;
-        } else if (actualVoters > 0 && correctVotes == actualVoters) {
-            // 所有投票的玩家都猜中了，主講者-2分
-            speakerScore = -2;
-        } else {
-            // 其他情況：固定得分 = ceil(投票者數 × 0.5)
-            speakerScore = (int) Math.ceil(voters * 0.5);
-        }
-        
-        VoteResult speakerResult = VoteResult.builder()
-                .playerId(speaker.getId())
-                .playerNickname(speaker.getNickname())
-                .votedImageUrl(round.getSpeakerFakeImageUrl())
-                .isCorrect(true)  // 主講者選擇的圖片就是正確答案
-                .scoreChange(speakerScore)
-                .isSpeaker(true)
-                .build();
-        voteResults.put(speaker.getId(), speakerResult);
+            // 關閉投票表，所有已確認的選票一次合併到回合
+            mergeVotes(state, voteBuffer.close(roundId));
+            round.setPhase(GameRound.RoundPhase.REVEALING);
+            state.markRoundDirty();
+
+            // 計算投票結果並保存在房間狀態中，結束回合時直接套用分數
+            Map<String, VoteResult> voteResults = scoringEngine.score(state.getRoom(), round, state.getPlayerList());
+            state.setRoundResults(voteResults);
 
-        GameRoundDTO dto = convertToDTO(round, speaker.getNickname());
-        dto.setVoteResults(voteResults);
-        return dto;
+            GameRoundDTO dto = convertToDTO(round, speakerNickname(state, round));
+            dto.setVoteResults(voteResults);
+            dto.setTransitioned(true);
+            return dto;
+        });
     }
 
-    @Transactional
     public GameRoundDTO finishRound(String roundId) {
-        GameRound round = gameRoundRepository.findById(roundId)
-                .orElseThrow(() -> new RuntimeException("回合不存在"));
-
-        if (round.getIsFinished()) {
-            return convertToDTO(round, null);
-        }
+        return gameStateEngine.executeOnRound(roundId, state -> {
+            if (state == null) {
+                // 回合已結束且不在記憶體中
+                return convertToDTO(requireRoundSnapshot(roundId), null);
+            }
 
-        Room room = roomRepository.findById(round.getRoomId())
-                .orElseThrow(() -> new RuntimeException("房間不存在"));
+            GameRound round = state.getCurrentRound();
 
-        List<Player> players = playerRepository.findByRoomId(room.getId());
-        Player speaker = playerRepository.findById(round.getSpeakerId())
-                .orElseThrow(() -> new RuntimeException("主講者不存在"));
+            if (round.getIsFinished()) {
+                return convertToDTO(round, null);
+            }
 
-        // 使用主講者選擇的說謊圖片作為正確答案
-        String correctFakeImage = round.getSpeakerFakeImageUrl() != null 
-                ? round.getSpeakerFakeImageUrl() 
-                : round.getFakeImageUrl();
+            // 投票階段直接結束回合（例如主講者斷線）時，投票表尚未關閉
+            mergeVotes(state, voteBuffer.close(roundId));
 
-        // 計算分數並記錄每個玩家的投票結果
-        int voters = players.size() - 1; // 排除主講者
-        int correctVotes = 0;
-        int actualVoters = 0; // 實際投票的玩家數（不包括未投票的）
-        
-        Map<String, VoteResult> voteResults = new HashMap<>();
+            Room room = state.getRoom();
 
-        // 第一遍遍歷：處理非主講者玩家，統計猜中次數
-        for (Player player : players) {
-            if (player.getId().equals(round.getSpeakerId())) {
-                continue; // 跳過主講者，稍後處理
+            // 公布結果時已計算過投票結果則直接使用，否則（未經公布直接結束）在這裡計算
+            Map<String, VoteResult> voteResults = state.getRoundResults();
+            if (voteResults == null) {
+                voteResults = scoringEngine.score(room, round, state.getPlayerList());
             }
 
-            String votedImage = round.getVotes().get(player.getId());
-            int scoreChange = 0;
-            boolean isCorrect = false;
-            
-            if (votedImage == null) {
-                // 未投票
-                player.setScore(player.getScore() - 1);
-                scoreChange = -1;
-            } else {
-                actualVoters++; // 有投票的玩家
-                if (votedImage.equals(correctFakeImage)) {
-                    // 投中假圖
-                    player.setScore(player.getScore() + 1);
-                    scoreChange = 1;
-                    isCorrect = true;
-                    correctVotes++;
-                } else {
-                    // 投錯
-                    scoreChange = 0;
+            // 套用分數變化，由狀態引擎在同一批次中寫回所有玩家
+            for (VoteResult result : voteResults.values()) {
+                Player player = state.getPlayer(result.getPlayerId());
+                if (player != null) {
+                    player.setScore(player.getScore() + result.getScoreChange());
+                    state.markPlayerDirty(player.getId());
                 }
             }
-            
-            VoteResult result = VoteResult.builder()
-                    .playerId(player.getId())
-                    .playerNickname(player.getNickname())
-                    .votedImageUrl(votedImage)
-                    .isCorrect(isCorrect)
-                    .scoreChange(scoreChange)
-                    .isSpeaker(false)
-                    .build();
-            voteResults.put(player.getId(), result);
-        }
-
-        // 處理主講者分數
-        int speakerScore;
-        
-        if (correctVotes == 0) {
-            // 沒有任何一個玩家猜中，主講者+3分
-            speakerScore = 3;
-        } else if (actualVoters > 0 && correctVotes == actualVoters) {
-            // 所有投票的玩家都猜中了，主講者-2分
-            speakerScore = -2;
-        } else {
-            // 其他情況：固定得分 = ceil(投票者數 × 0.5)
-            speakerScore = (int) Math.ceil(voters * 0.5);
-        }
-        
-        speaker.setScore(speaker.getScore() + speakerScore);
-        
-        VoteResult speakerResult = VoteResult.builder()
-                .playerId(speaker.getId())
-                .playerNickname(speaker.getNickname())
-                .votedImageUrl(round.getSpeakerFakeImageUrl())
-                .isCorrect(true)  // 主講者選擇的圖片就是正確答案
-                .scoreChange(speakerScore)
-                .isSpeaker(true)
-                .build();
-        voteResults.put(speaker.getId(), speakerResult);
-
-        playerRepository.saveAll(players);
-
-        round.setPhase(GameRound.RoundPhase.FINISHED);
-        round.setIsFinished(true);
-        round = gameRoundRepository.save(round);
-
-        // 檢查遊戲是否結束
-        if (round.getRoundNumber() >= room.getTotalRounds()) {
-            room.setStatus(Room.RoomStatus.FINISHED);
-            roomRepository.save(room);
-        }
+            state.setRoundResults(null);
+
+            round.setPhase(GameRound.RoundPhase.FINISHED);
+            round.setIsFinished(true);
+            round.setFinishedAt(LocalDateTime.now());
+            state.markRoundDirty();
+            hotImageCache.release(room.getId());
+
+            // 檢查遊戲是否結束
+            if (round.getRoundNumber() >= room.getTotalRounds()) {
+                room.setStatus(Room.RoomStatus.FINISHED);
+                state.markRoomDirty();
+            }
 
-        // 將投票結果存儲到回合中（通過一個臨時字段，實際存儲在 DTO 中）
-        GameRoundDTO dto = convertToDTO(round, speaker.getNickname());
-        dto.setVoteResults(voteResults);
-        return dto;
+            GameRoundDTO dto = convertToDTO(round, speakerNickname(state, round));
+            dto.setVoteResults(voteResults);
+            dto.setTransitioned(true);
+            return dto;
+        });
     }
 
-    @Transactional
-    public void handlePlayerDisconnect(String playerId) {
-        Player player = playerRepository.findById(playerId)
-                .orElseThrow(() -> new RuntimeException("玩家不存在"));
-
-        player.setIsOnline(false);
-        playerRepository.save(player);
-
-        Room room = roomRepository.findById(player.getRoomId())
-                .orElseThrow(() -> new RuntimeException("房間不存在"));
-
-        // 如果主講者斷線，自動結束當前回合
-        if (room.getStatus() == Room.RoomStatus.PLAYING) {
-            Optional<GameRound> currentRound = gameRoundRepository.findByRoomIdAndIsFinishedFalse(room.getId());
-            if (currentRound.isPresent() && currentRound.get().getSpeakerId().equals(playerId)) {
-                finishRound(currentRound.get().getId());
+    /**
+     * 標記玩家離線；主講者在回合進行中斷線時返回需要結束的回合 ID（由 RoundPhaseScheduler 結束並廣播）
+     */
+    public Optional<String> handlePlayerDisconnect(String playerId) {
+        Optional<String> roundIdToFinish = gameStateEngine.executeOnPlayer(playerId, state -> {
+            if (state == null) {
+                return null;
             }
-        }
+            state.getPlayer(playerId).setIsOnline(false);
+            state.markPlayerDirty(playerId);
+
+            // 如果主講者斷線，自動結束當前回合
+            GameRound currentRound = state.getCurrentRound();
+            if (state.getRoom().getStatus() == Room.RoomStatus.PLAYING
+                    && currentRound != null && !currentRound.getIsFinished()
+                    && currentRound.getSpeakerId().equals(playerId)) {
+                return Optional.of(currentRound.getId());
+            }
+            return Optional.empty();
+        });
+
+        if (roundIdToFinish == null) {
+            // 房間不在遊戲中，直接更新資料庫
+            Player player = playerRepository.findById(playerId)
+                    .orElseThrow(() -> new RuntimeException("玩家不存在"));
+            player.setIsOnline(false);
+            playerRepository.save(player);
+            return Optional.empty();
+        }
+        return roundIdToFinish;
     }
 
-    @Transactional
     public void handlePlayerReconnect(String playerId) {
+        boolean live = gameStateEngine.executeOnPlayer(playerId, state -> {
+            if (state == null) {
+                return false;
+            }
+            state.getPlayer(playerId).setIsOnline(true);
+            state.markPlayerDirty(playerId);
+            return true;
+        });
+        if (live) {
+            return;
+        }
+
         Player player = playerRepository.findById(playerId)
                 .orElseThrow(() -> new RuntimeException("玩家不存在"));
 
@@ -467,138 +393,77 @@ public class GameService {
         return allImages;
     }
 
-    @Transactional
     public GameRoundDTO nextPhase(String roundId) {
-        GameRound round = gameRoundRepository.findById(roundId)
-                .orElseThrow(() -> new RuntimeException("回合不存在"));
-
-        if (round.getIsFinished()) {
-            throw new RuntimeException("回合已結束");
-        }
+        return gameStateEngine.executeOnRound(roundId, state -> {
+            GameRound round = requireLiveRound(state, roundId);
+
+            // 階段轉換：STORY_TELLING -> QUESTIONING -> VOTING
+            switch (round.getPhase()) {
+                case STORY_TELLING:
+                    round.setPhase(GameRound.RoundPhase.QUESTIONING);
+                    break;
+                case QUESTIONING:
+                    // 應該使用 startVoting 方法
+                    throw new RuntimeException("請使用開始投票接口");
+                case VOTING:
+                    // 應該使用 revealResult 方法
+                    throw new RuntimeException("請使用公布結果接口");
+                default:
+                    throw new RuntimeException("當前階段不能轉換");
+            }
 
-        // 階段轉換：STORY_TELLING -> QUESTIONING -> VOTING
-        switch (round.getPhase()) {
-            case STORY_TELLING:
-                round.setPhase(GameRound.RoundPhase.QUESTIONING);
-                break;
-            case QUESTIONING:
-                // 應該使用 startVoting 方法
-                throw new RuntimeException("請使用開始投票接口");
-            case VOTING:
-                // 應該使用 revealResult 方法
-                throw new RuntimeException("請使用公布結果接口");
-            default:
-                throw new RuntimeException("當前階段不能轉換");
-        }
+            state.markRoundDirty();
+            return convertToDTO(round, speakerNickname(state, round));
+        });
+    }
 
-        round = gameRoundRepository.save(round);
-        
-        // 強制加載懶加載的集合，避免 LazyInitializationException
-        if (round.getImageUrls() != null) {
-            round.getImageUrls().size(); // 觸發加載
+    /**
+     * 取得進行中的當前回合；回合存在但已結束時拋出「回合已結束」
+     */
+    private GameRound requireLiveRound(RoomState state, String roundId) {
+        if (state == null) {
+            requireRoundSnapshot(roundId);
+            throw new RuntimeException("回合已結束");
         }
-        if (round.getVotes() != null) {
-            round.getVotes().size(); // 觸發加載
+        GameRound round = state.getCurrentRound();
+        if (round.getIsFinished()) {
+            throw new RuntimeException("回合已結束");
         }
-        
-        Player speaker = playerRepository.findById(round.getSpeakerId())
-                .orElseThrow(() -> new RuntimeException("主講者不存在"));
-        return convertToDTO(round, speaker.getNickname());
+        return round;
     }
 
     /**
-     * 獲取圖片的最終 URL（跟隨所有重定向，獲取包含所有參數的完整 URL）
-     * 這樣可以確保所有玩家看到相同的圖片
+     * 把投票表的選票合併到當前回合（主講者的選票即說謊圖片），有變更時標記回合待寫回，只能在命令內調用
      */
-    private String getFinalImageUrl(String initialUrl) {
-        String currentUrl = initialUrl;
-        int maxRedirects = 10; // 最多跟隨10次重定向
-        int redirectCount = 0;
-        
-        try {
-            while (redirectCount < maxRedirects) {
-                HttpURLConnection connection = (HttpURLConnection) new URL(currentUrl).openConnection();
-                connection.setInstanceFollowRedirects(false); // 不自動跟隨重定向
-                connection.setRequestMethod("HEAD");
-                connection.setConnectTimeout(5000); // 5秒超時
-                connection.setReadTimeout(5000);
-                connection.setRequestProperty("User-Agent", "Mozilla/5.0");
-                
-                int responseCode = connection.getResponseCode();
-                
-                // 如果返回重定向（301, 302, 303, 307, 308），獲取 Location header
-                if (responseCode >= 300 && responseCode < 400) {
-                    String location = connection.getHeaderField("Location");
-                    if (location != null && !location.isEmpty()) {
-                        // 如果是相對路徑，轉換為絕對路徑
-                        if (location.startsWith("/")) {
-                            URI baseUri = new URI(currentUrl);
-                            URI locationUri = baseUri.resolve(location);
-                            currentUrl = locationUri.toString();
-                        } else if (location.startsWith("http://") || location.startsWith("https://")) {
-                            currentUrl = location;
-                        } else {
-                            // 相對路徑，需要解析
-                            URI baseUri = new URI(currentUrl);
-                            URI locationUri = baseUri.resolve(location);
-                            currentUrl = locationUri.toString();
-                        }
-                        redirectCount++;
-                        connection.disconnect();
-                        continue;
-                    }
-                }
-                
-                // 檢查響應碼，200-299 表示成功
-                if (responseCode >= 200 && responseCode < 300) {
-                    connection.disconnect();
-                    return currentUrl;
-                } else {
-                    // 響應碼不是成功，返回 null 表示無效
-                    connection.disconnect();
-                    return null;
+    private void mergeVotes(RoomState state, Map<String, String> votes) {
+        GameRound round = state.getCurrentRound();
+        boolean changed = false;
+        for (Map.Entry<String, String> vote : votes.entrySet()) {
+            if (round.getSpeakerId().equals(vote.getKey())) {
+                if (!vote.getValue().equals(round.getSpeakerFakeImageUrl())) {
+                    round.setSpeakerFakeImageUrl(vote.getValue());
+                    changed = true;
                 }
+            } else if (!vote.getValue().equals(round.getVotes().put(vote.getKey(), vote.getValue()))) {
+                changed = true;
             }
-            
-            // 如果超過最大重定向次數，返回 null 表示無效
-            log.warn("跟隨重定向超過最大次數: {}", currentUrl);
-            return null;
-        } catch (Exception e) {
-            log.warn("獲取假圖最終 URL 失敗: {}", initialUrl, e);
-            // 如果獲取失敗，返回 null 表示無效
-            return null;
         }
-    }
-    
-    /**
-     * 驗證圖片 URL 是否有效（圖片是否存在）
-     */
-    private boolean validateImageUrl(String imageUrl) {
-        if (imageUrl == null || imageUrl.isEmpty()) {
-            return false;
+        if (changed) {
+            state.markRoundDirty();
         }
-        
-        try {
-            HttpURLConnection connection = (HttpURLConnection) new URL(imageUrl).openConnection();
-            connection.setRequestMethod("HEAD");
-            connection.setConnectTimeout(5000); // 5秒超時
-            connection.setReadTimeout(5000);
-            connection.setRequestProperty("User-Agent", "Mozilla/5.0");
-            
-            int responseCode = connection.getResponseCode();
-            connection.disconnect();
-            
-            // 200-299 表示成功，404 表示圖片不存在
-            if (responseCode == 404) {
-                log.warn("圖片不存在 (404): {}", imageUrl);
-                return false;
-            }
-            
-            return responseCode >= 200 && responseCode < 300;
-        } catch (Exception e) {
-            log.warn("驗證圖片 URL 失敗: {}", imageUrl, e);
-            return false;
+    }
+
+    private GameRound requireRoundSnapshot(String roundId) {
+        return gameStateEngine.findRoundSnapshot(roundId)
+                .orElseThrow(() -> new RuntimeException("回合不存在"));
+    }
+
+    private String speakerNickname(RoomState state, GameRound round) {
+        Player speaker = state.getPlayer(round.getSpeakerId());
+        if (speaker == null) {
+            throw new RuntimeException("主講者不存在");
         }
+        return speaker.getNickname();
     }
 
     private GameRoundDTO convertToDTO(GameRound round, String speakerNickname) {
@@ -608,13 +473,25 @@ public class GameService {
                 .roundNumber(round.getRoundNumber())
                 .speakerId(round.getSpeakerId())
                 .speakerNickname(speakerNickname)
-                .imageUrls(round.getImageUrls())
+                .imageUrls(new ArrayList<>(round.getImageUrls()))
                 .fakeImageUrl(round.getFakeImageUrl())
                 .speakerFakeImageUrl(round.getSpeakerFakeImageUrl())
                 .phase(round.getPhase())
-                .votes(round.getVotes())
+                .votes(new HashMap<>(round.getVotes()))
                 .isFinished(round.getIsFinished())
+                .votingTimeLeft(votingTimeLeft(round))
                 .build();
     }
+
+    /**
+     * 投票階段的剩餘秒數（無條件進位），不在投票階段時返回 null
+     */
+    private Integer votingTimeLeft(GameRound round) {
+        if (round.getPhase() != GameRound.RoundPhase.VOTING || round.getVotingEndsAt() == null) {
+            return null;
+        }
+        long millis = Duration.between(LocalDateTime.now(), round.getVotingEndsAt()).toMillis();
+        return (int) Math.max(0, (millis + 999) / 1000);
+    }
 }
 
@@ -0,0 +1,252 @@
+package com.bluffmaster.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 進行中回合的圖片快取（本地模式）
+ * 回合開始時房間的 4 張圖片會在一秒內被所有玩家同時下載，startRound 選好圖片後即在背景載入到堆外記憶體並釘住，
+ * finishRound 時解除；解除後的圖片依 LRU 保留到總大小超過 game.hot-image-cache.max-bytes 為止，釘住的圖片不會被淘汰。
+ * 多節點模式下只有開始回合的節點會預先載入；在其他節點結束的回合由 pin-timeout 到期後解除
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HotImageCache {
+
+    private static final String LOCAL_PREFIX = "/api/images/";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${storage.type:local}")
+    private String storageType;
+
+    @Value("${storage.upload-dir:./uploads}")
+    private String uploadDir;
+
+    @Value("${game.hot-image-cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${game.hot-image-cache.pin-timeout:600000}")
+    private long pinTimeout;
+
+    // 以下三個欄位由 lock 保護；entries 以存取順序排列（LRU）
+    private final Object lock = new Object();
+    private final LinkedHashMap<String, ByteBuffer> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Integer> pinCounts = new HashMap<>();
+    private long residentBytes;
+
+    // roomId -> 目前回合釘住的圖片
+    private final Map<String, Pin> pins = new ConcurrentHashMap<>();
+
+    private ThreadPoolTaskExecutor loader;
+    // [pinned ? 1 : 0]：回合中的圖片與其他下載分開計數，才看得出回合圖片的命中率
+    private final Counter[] hits = new Counter[2];
+    private final Counter[] misses = new Counter[2];
+
+    @PostConstruct
+    public void init() {
+        loader = new ThreadPoolTaskExecutor();
+        loader.setCorePoolSize(1);
+        loader.setMaxPoolSize(1);
+        loader.setThreadNamePrefix("hot-image-");
+        loader.initialize();
+
+        for (int pinned = 0; pinned < 2; pinned++) {
+            hits[pinned] = requestCounter("hit", pinned == 1);
+            misses[pinned] = requestCounter("miss", pinned == 1);
+        }
+        Gauge.builder("game.image.cache.resident.bytes", this, HotImageCache::residentBytes)
+                .description("快取在堆外記憶體中的圖片大小")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdown();
+    }
+
+    /**
+     * 釘住房間目前回合的圖片並在背景載入，同時解除該房間上一回合的圖片；非本地圖片（例如假圖）略過
+     */
+    public void pin(String roomId, Collection<String> imageUrls) {
+        if (!"local".equals(storageType)) {
+            return;
+        }
+        List<String> fileNames = imageUrls.stream()
+                .filter(url -> url.startsWith(LOCAL_PREFIX))
+                .map(url -> url.substring(LOCAL_PREFIX.length()))
+                .toList();
+        Pin previous = pins.put(roomId, new Pin(fileNames, System.currentTimeMillis()));
+
+        synchronized (lock) {
+            fileNames.forEach(fileName -> pinCounts.merge(fileName, 1, Integer::sum));
+            if (previous != null) {
+                unpinLocked(previous.fileNames());
+            }
+        }
+        for (String fileName : fileNames) {
+            loader.execute(() -> load(fileName));
+        }
+    }
+
+    /**
+     * 解除房間釘住的圖片（回合結束或房間刪除），圖片仍留在快取中直到被淘汰
+     */
+    public void release(String roomId) {
+        Pin pin = pins.remove(roomId);
+        if (pin != null) {
+            synchronized (lock) {
+                unpinLocked(pin.fileNames());
+            }
+        }
+    }
+
+    /**
+     * 取得快取中的圖片內容（唯讀），未快取時返回 null
+     */
+    public ByteBuffer get(String fileName) {
+        ByteBuffer data;
+        int pinned;
+        synchronized (lock) {
+            data = entries.get(fileName);
+            pinned = pinCounts.containsKey(fileName) ? 1 : 0;
+        }
+        if (data == null) {
+            misses[pinned].increment();
+            return null;
+        }
+        hits[pinned].increment();
+        return data.asReadOnlyBuffer();
+    }
+
+    /**
+     * 圖片檔案已刪除時移出快取
+     */
+    public void invalidate(String fileName) {
+        synchronized (lock) {
+            ByteBuffer removed = entries.remove(fileName);
+            if (removed != null) {
+                residentBytes -= removed.capacity();
+            }
+        }
+    }
+
+    /**
+     * 解除超過 pin-timeout 仍未結束的回合（在其他節點結束或房間已被清理）
+     */
+    @Scheduled(fixedDelayString = "${game.hot-image-cache.pin-timeout:600000}")
+    public void expirePins() {
+        long deadline = System.currentTimeMillis() - pinTimeout;
+        pins.forEach((roomId, pin) -> {
+            if (pin.pinnedAt() < deadline && pins.remove(roomId, pin)) {
+                synchronized (lock) {
+                    unpinLocked(pin.fileNames());
+                }
+            }
+        });
+    }
+
+    private void load(String fileName) {
+        synchronized (lock) {
+            // 已快取，或載入前回合已結束
+            if (entries.containsKey(fileName) || !pinCounts.containsKey(fileName)) {
+                return;
+            }
+        }
+
+        ByteBuffer data;
+        Path file = Paths.get(uploadDir).resolve(fileName);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > maxBytes) {
+                return;
+            }
+            data = ByteBuffer.allocateDirect((int) size);
+            while (data.hasRemaining() && channel.read(data) >= 0) {
+                // 讀到檔案結尾為止
+            }
+            data.flip();
+        } catch (NoSuchFileException e) {
+            return;
+        } catch (IOException e) {
+            log.warn("載入圖片到快取失敗: {}", fileName, e);
+            return;
+        }
+
+        synchronized (lock) {
+            if (entries.containsKey(fileName) || !pinCounts.containsKey(fileName)) {
+                return;
+            }
+            evictLocked(data.capacity());
+            if (residentBytes + data.capacity() > maxBytes) {
+                log.debug("釘住的圖片已佔滿快取，{} 改由磁碟提供", fileName);
+                return;
+            }
+            entries.put(fileName, data);
+            residentBytes += data.capacity();
+        }
+    }
+
+    /**
+     * 從最久未使用的開始淘汰未釘住的圖片，直到可以再放入 incoming 位元組
+     */
+    private void evictLocked(long incoming) {
+        Iterator<Map.Entry<String, ByteBuffer>> iterator = entries.entrySet().iterator();
+        while (residentBytes + incoming > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, ByteBuffer> entry = iterator.next();
+            if (!pinCounts.containsKey(entry.getKey())) {
+                residentBytes -= entry.getValue().capacity();
+                iterator.remove();
+            }
+        }
+    }
+
+    private void unpinLocked(List<String> fileNames) {
+        for (String fileName : fileNames) {
+            pinCounts.computeIfPresent(fileName, (name, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    private Counter requestCounter(String result, boolean pinned) {
+        return Counter.builder("game.image.cache.requests")
+                .description("圖片下載請求數，回合圖片的命中率 = hit / (hit + miss)（pinned=true）")
+                .tag("result", result)
+                .tag("pinned", String.valueOf(pinned))
+                .register(meterRegistry);
+    }
+
+    private double residentBytes() {
+        synchronized (lock) {
+            return residentBytes;
+        }
+    }
+
+    private record Pin(List<String> fileNames, long pinnedAt) {
+    }
+}
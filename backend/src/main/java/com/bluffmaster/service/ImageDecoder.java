@@ -0,0 +1,86 @@
+package com.bluffmaster.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * 圖片解碼器
+ * 先只讀取圖片尺寸，再利用 ImageReadParam 的來源子取樣（source subsampling）直接解碼出接近目標寬度的圖片，
+ * 避免把 48MP 的照片完整解碼成數百 MB 的點陣圖後才縮小；
+ * 子取樣倍數同時受像素預算限制，很長或很窄的圖片（例如長截圖）解碼後也不會超過 max-decode-pixels
+ */
+@Component
+@Slf4j
+public class ImageDecoder {
+
+    @Value("${game.image-compression.max-decode-pixels:8000000}")
+    private long maxDecodePixels;
+
+    /**
+     * 解碼後的圖片及原始尺寸
+     */
+    public record DecodedImage(BufferedImage image, int originalWidth, int originalHeight) {
+    }
+
+    /**
+     * 解碼圖片，解碼結果寬度不小於 targetWidth（原圖較小時保持原尺寸），但像素數超出預算時以預算為準；
+     * 無法識別格式時返回 null
+     */
+    public DecodedImage decode(InputStream input, int targetWidth) throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(input)) {
+            if (iis == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+
+                int factor = subsamplingFactor(width, height, targetWidth);
+                ImageReadParam param = reader.getDefaultReadParam();
+                if (factor > 1) {
+                    param.setSourceSubsampling(factor, factor, 0, 0);
+                    log.debug("原始圖片 {}x{}，以 1/{} 子取樣解碼", width, height, factor);
+                }
+
+                BufferedImage image = reader.read(0, param);
+                return new DecodedImage(image, width, height);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 子取樣倍數：寬度不低於 targetWidth 的最大倍數，與解碼後不超過像素預算的最小倍數中取較大者
+     */
+    int subsamplingFactor(int width, int height, int targetWidth) {
+        // 子取樣後的寬度 = ceil(width / factor) >= targetWidth
+        int factor = Math.max(1, width / Math.max(1, targetWidth));
+        factor = Math.max(factor, (int) Math.sqrt((double) width * height / maxDecodePixels));
+        while (subsampledPixels(width, height, factor) > maxDecodePixels) {
+            factor++;
+        }
+        return factor;
+    }
+
+    private static long subsampledPixels(int width, int height, int factor) {
+        return (long) ((width + factor - 1) / factor) * ((height + factor - 1) / factor);
+    }
+}
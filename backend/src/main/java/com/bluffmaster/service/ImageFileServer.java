@@ -0,0 +1,165 @@
+package com.bluffmaster.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 本地模式的圖片下載
+ * 圖片以內容雜湊（舊圖片為 UUID）命名，寫入後不會再改變，因此以檔名作為強 ETag 並標記為 immutable，
+ * 瀏覽器在 max-age 內不會重新驗證；支援單一 Range 請求與 If-None-Match / If-Range，
+ * 沒有較小版本（{hash}-thumb.jpg 等）的舊圖片改為提供原圖。
+ * 進行中回合的圖片直接從 HotImageCache 的記憶體寫出；其他圖片在 Tomcat 支援 sendfile 時由連接器直接從檔案送到 socket（零複製），
+ * 否則以 FileChannel.transferTo 寫出
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ImageFileServer {
+
+    private static final Pattern FILE_NAME = Pattern.compile("[A-Za-z0-9-]+\\.(jpg|jpeg|png|gif|webp)");
+    private static final Pattern VARIANT_NAME = Pattern.compile("([0-9a-f]{64})-[a-z]+\\.jpg");
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final HotImageCache hotImageCache;
+
+    @Value("${storage.type:local}")
+    private String storageType;
+
+    @Value("${storage.upload-dir:./uploads}")
+    private String uploadDir;
+
+    @Value("${storage.image-max-age:31536000}")
+    private long maxAge;
+
+    public void serve(String fileName, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!"local".equals(storageType) || !FILE_NAME.matcher(fileName).matches()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        String cacheControl = "public, max-age=" + maxAge + ", immutable";
+        ByteBuffer cached = hotImageCache.get(fileName);
+        Path file = Paths.get(uploadDir).resolve(fileName).toAbsolutePath();
+        if (cached == null && !Files.isRegularFile(file)) {
+            // 功能加入前上傳的圖片沒有較小的版本，改為提供原圖（之後可能補上版本，不標記為 immutable）
+            Matcher variant = VARIANT_NAME.matcher(fileName);
+            if (!variant.matches()) {
+                response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            fileName = variant.group(1) + ".jpg";
+            cacheControl = "public, max-age=3600";
+            cached = hotImageCache.get(fileName);
+            file = Paths.get(uploadDir).resolve(fileName).toAbsolutePath();
+            if (cached == null && !Files.isRegularFile(file)) {
+                response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+        }
+
+        long length = cached != null ? cached.remaining() : Files.size(file);
+        String etag = "\"" + fileName.substring(0, fileName.lastIndexOf('.')) + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = length;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        // If-Range 與目前版本不同時忽略 Range，返回完整內容
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(range);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();
+            }
+            // 多段 Range 時返回完整內容（RFC 9110 允許）
+            if (ranges.size() == 1) {
+                HttpRange requested = ranges.get(0);
+                if (length == 0 || requested.getRangeStart(length) >= length) {
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    return;
+                }
+                start = requested.getRangeStart(length);
+                end = requested.getRangeEnd(length) + 1;
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + length);
+            }
+        }
+
+        response.setContentType(MediaTypeFactory.getMediaType(fileName)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        response.setContentLengthLong(end - start);
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+
+        if (cached != null) {
+            Channels.newChannel(response.getOutputStream()).write(cached.slice((int) start, (int) (end - start)));
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position < end) {
+                position += channel.transferTo(position, end - position, target);
+            }
+        }
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
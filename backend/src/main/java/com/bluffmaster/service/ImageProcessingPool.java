@@ -0,0 +1,52 @@
+package com.bluffmaster.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Supplier;
+
+/**
+ * 圖片解碼與壓縮的共用執行緒池（依 CPU 核心數設定大小）
+ * 所有上傳共用同一個有界佇列；佇列滿時由提交任務的執行緒自行處理，形成跨上傳者的背壓
+ * （同步上傳時是請求執行緒，非同步上傳時是 UploadJobService 的任務執行緒）
+ */
+@Component
+@Slf4j
+public class ImageProcessingPool {
+
+    @Value("${game.image-processing.pool-size:0}")
+    private int poolSize;
+
+    @Value("${game.image-processing.queue-capacity:32}")
+    private int queueCapacity;
+
+    private ThreadPoolTaskExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("image-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        log.info("圖片處理執行緒池已啟動，執行緒數: {}, 佇列容量: {}", threads, queueCapacity);
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
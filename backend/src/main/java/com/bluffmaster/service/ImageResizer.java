@@ -0,0 +1,30 @@
+package com.bluffmaster.service;
+
+import net.coobird.thumbnailator.Thumbnails;
+import org.springframework.stereotype.Component;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * 圖片縮放引擎（基於 Thumbnailator）
+ * 縮小超過一半時逐步減半進行雙線性插值（progressive bilinear），放大時使用雙三次插值，
+ * 速度遠快於 Image.getScaledInstance(SCALE_SMOOTH)，且畫質相近
+ */
+@Component
+public class ImageResizer {
+
+    /**
+     * 縮放到指定尺寸（不保持比例），輸出 TYPE_INT_RGB 以便直接編碼為 JPEG
+     */
+    public BufferedImage resize(BufferedImage source, int targetWidth, int targetHeight) throws IOException {
+        if (source.getWidth() == targetWidth && source.getHeight() == targetHeight
+                && source.getType() == BufferedImage.TYPE_INT_RGB) {
+            return source;
+        }
+        return Thumbnails.of(source)
+                .forceSize(targetWidth, targetHeight)
+                .imageType(BufferedImage.TYPE_INT_RGB)
+                .asBufferedImage();
+    }
+}
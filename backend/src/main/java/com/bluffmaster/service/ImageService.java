@@ -2,35 +2,32 @@ package com.bluffmaster.service;
 
 import com.bluffmaster.model.Player;
 import com.bluffmaster.repository.PlayerRepository;
-import com.google.cloud.storage.BlobId;
-import com.google.cloud.storage.BlobInfo;
-import com.google.cloud.storage.Storage;
-import com.google.cloud.storage.StorageOptions;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.imageio.ImageIO;
-import javax.imageio.ImageWriteParam;
-import javax.imageio.ImageWriter;
 import javax.imageio.stream.ImageOutputStream;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.time.LocalDateTime;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.util.ArrayList;
-import java.util.Base64;
+import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
-import java.util.UUID;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 
 @Service
 @RequiredArgsConstructor
@@ -38,21 +35,13 @@ import java.util.UUID;
 public class ImageService {
 
     private final PlayerRepository playerRepository;
-
-    @Value("${gcp.storage.bucket-name:}")
-    private String bucketName;
-
-    @Value("${gcp.storage.project-id:}")
-    private String projectId;
-
-    @Value("${gcp.storage.credentials-path:}")
-    private String credentialsPath;
-
-    @Value("${storage.type:local}")
-    private String storageType;
-
-    @Value("${storage.upload-dir:./uploads}")
-    private String uploadDir;
+    private final ImageProcessingPool imageProcessingPool;
+    private final ImageDecoder imageDecoder;
+    private final ImageResizer imageResizer;
+    private final JpegEncoder jpegEncoder;
+    private final ImageStore imageStore;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
 
     @Value("${game.max-image-size}")
     private long maxImageSize;
@@ -63,45 +52,49 @@ public class ImageService {
     @Value("${game.image-compression.max-width}")
     private int maxWidth;
 
-    private Storage storage;
+    @Value("${game.image-compression.thumbnail-width:240}")
+    private int thumbnailWidth;
+
+    @Value("${game.image-compression.medium-width:540}")
+    private int mediumWidth;
+
+    // 每次上傳在記憶體中的點陣圖大小（解碼結果 + 縮放結果），即單次上傳的記憶體峰值
+    private DistributionSummary rasterBytes;
 
     @jakarta.annotation.PostConstruct
     public void init() {
-        // 確保上傳目錄存在
-        if ("local".equals(storageType)) {
-            try {
-                Path uploadPath = Paths.get(uploadDir);
-                if (!Files.exists(uploadPath)) {
-                    Files.createDirectories(uploadPath);
-                    log.info("創建上傳目錄: {}", uploadPath.toAbsolutePath());
-                }
-            } catch (IOException e) {
-                log.error("無法創建上傳目錄: {}", uploadDir, e);
-            }
-        }
+        rasterBytes = DistributionSummary.builder("image.upload.raster.bytes")
+                .description("每張上傳圖片處理時佔用的點陣圖記憶體")
+                .baseUnit("bytes")
+                .register(meterRegistry);
     }
 
-    private Storage getStorage() {
-        if (storage == null && bucketName != null && !bucketName.isEmpty()) {
-            try {
-                if (credentialsPath != null && !credentialsPath.isEmpty()) {
-                    storage = StorageOptions.newBuilder()
-                            .setProjectId(projectId)
-                            .build()
-                            .getService();
-                } else {
-                    // 使用默認憑證
-                    storage = StorageOptions.getDefaultInstance().getService();
-                }
-            } catch (Exception e) {
-                log.warn("無法初始化 GCP Storage，將使用本地模式: " + e.getMessage());
-            }
+    public List<String> uploadImages(String playerId, List<MultipartFile> files) throws IOException {
+        return storeAndAttach(playerId, files.stream().map(ImageUpload::of).toList());
+    }
+
+    /**
+     * 上傳單張直接串流的圖片（請求內容即圖片本身）
+     */
+    public List<String> uploadImage(String playerId, ImageUpload upload) throws IOException {
+        return storeAndAttach(playerId, List.of(upload));
+    }
+
+    private List<String> storeAndAttach(String playerId, List<ImageUpload> files) throws IOException {
+        checkUploadAllowed(playerId, files);
+        List<String> uploadedUrls;
+        try {
+            uploadedUrls = processUploads(files, (index, url) -> { }).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : new RuntimeException(e.getCause());
         }
-        return storage;
+        return attachImages(playerId, uploadedUrls);
     }
 
-    @Transactional
-    public List<String> uploadImages(String playerId, List<MultipartFile> files) throws IOException {
+    /**
+     * 檢查玩家是否可以上傳這些圖片（在開始壓縮前先檢查全部文件），返回玩家
+     */
+    Player checkUploadAllowed(String playerId, List<ImageUpload> files) {
         log.info("開始上傳圖片，玩家ID: {}, 文件數量: {}", playerId, files.size());
         
         Player player = playerRepository.findById(playerId)
@@ -116,57 +109,157 @@ public class ImageService {
             throw new RuntimeException("已準備狀態下無法上傳圖片，請先取消準備");
         }
 
-        List<String> uploadedUrls = new ArrayList<>();
+        // 驗證文件類型
+        for (ImageUpload file : files) {
+            String contentType = file.contentType();
+            if (contentType == null || !contentType.startsWith("image/")) {
+                log.error("不支援的文件類型: {}", contentType);
+                throw new RuntimeException("處理圖片失敗: 只支援圖片格式");
+            }
+        }
+        return player;
+    }
 
+    /**
+     * 在圖片處理執行緒池中並行壓縮並儲存所有圖片，每張完成時通知 onStored(序號, URL)
+     * 結果保持上傳順序；任一失敗時清理已儲存的圖片並以該錯誤結束
+     */
+    CompletableFuture<List<String>> processUploads(List<ImageUpload> files, BiConsumer<Integer, String> onStored) {
+        List<CompletableFuture<String>> tasks = new ArrayList<>();
         for (int i = 0; i < files.size(); i++) {
-            MultipartFile file = files.get(i);
-            try {
-                log.info("處理第 {} 個文件: {}, 大小: {} bytes, 類型: {}", 
-                    i + 1, file.getOriginalFilename(), file.getSize(), file.getContentType());
-                
-                // 驗證文件類型
-                String contentType = file.getContentType();
-                if (contentType == null || !contentType.startsWith("image/")) {
-                    log.error("不支援的文件類型: {}", contentType);
-                    throw new RuntimeException("只支援圖片格式");
+            int index = i;
+            tasks.add(imageProcessingPool.submit(() -> {
+                String url = processImage(index, files.get(index));
+                onStored.accept(index, url);
+                return url;
+            }));
+        }
+
+        return CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new))
+                .handle((ignored, error) -> {
+                    List<String> uploadedUrls = new ArrayList<>();
+                    RuntimeException failure = null;
+                    for (CompletableFuture<String> task : tasks) {
+                        try {
+                            uploadedUrls.add(task.join());
+                        } catch (CompletionException e) {
+                            if (failure == null) {
+                                failure = e.getCause() instanceof RuntimeException re ? re : new RuntimeException(e.getCause());
+                            }
+                        }
+                    }
+                    if (failure != null) {
+                        deleteStoredImages(uploadedUrls);
+                        throw failure;
+                    }
+                    return uploadedUrls;
+                });
+    }
+
+    /**
+     * 把已儲存的圖片加入玩家圖片列表（只有這一步開啟交易），返回實際加入的圖片
+     * 玩家已有的圖片（相同內容的重複上傳）不再加入並釋放多取得的引用；失敗時清理全部圖片
+     */
+    List<String> attachImages(String playerId, List<String> uploadedUrls) {
+        List<String> duplicates = new ArrayList<>();
+        List<String> attached;
+        try {
+            attached = transactionTemplate.execute(status -> {
+                Player current = playerRepository.findById(playerId)
+                        .orElseThrow(() -> new RuntimeException("玩家不存在"));
+                if (current.getIsReady()) {
+                    throw new RuntimeException("已準備狀態下無法上傳圖片，請先取消準備");
+                }
+                if (current.getImageUrls() == null) {
+                    current.setImageUrls(new ArrayList<>());
+                }
+                Set<String> owned = new HashSet<>(current.getImageUrls());
+                List<String> added = new ArrayList<>();
+                for (String url : uploadedUrls) {
+                    if (owned.add(url)) {
+                        added.add(url);
+                    } else {
+                        duplicates.add(url);
+                    }
                 }
+                current.getImageUrls().addAll(added);
+                playerRepository.save(current);
+                log.info("玩家圖片列表已更新，總共 {} 張圖片", current.getImageUrls().size());
+                return added;
+            });
+        } catch (RuntimeException e) {
+            deleteStoredImages(uploadedUrls);
+            throw e;
+        }
+        if (!duplicates.isEmpty()) {
+            log.info("玩家已有相同圖片，略過 {} 張", duplicates.size());
+            deleteStoredImages(duplicates);
+        }
+        return attached;
+    }
 
-                // 壓縮圖片
-                log.debug("開始壓縮圖片: {}", file.getOriginalFilename());
-                byte[] compressedImage = compressImage(file);
-                log.debug("圖片壓縮完成，大小: {} bytes", compressedImage.length);
-
-                // 生成 UUID 檔名
-                String fileName = UUID.randomUUID().toString() + ".jpg";
-
-                // 上傳圖片（根據配置選擇儲存方式）
-                String imageUrl;
-                if ("gcp".equals(storageType) && bucketName != null && !bucketName.isEmpty()) {
-                    log.debug("使用 GCP 儲存");
-                    imageUrl = uploadToGCP(fileName, compressedImage);
-                } else {
-                    // 本地開發模式：使用 Base64 或本地文件系統
-                    log.debug("使用本地儲存");
-                    imageUrl = uploadToLocal(fileName, compressedImage);
+    private String processImage(int index, ImageUpload file) {
+        try {
+            log.info("處理第 {} 個文件: {}, 大小: {} bytes, 類型: {}", 
+                index + 1, file.name(), file.size(), file.contentType());
+
+            // 可重複讀取的來源先計算原始內容雜湊，重複上傳的圖片不需要再壓縮
+            String sourceHash = null;
+            if (file.repeatable()) {
+                sourceHash = ImageStore.hash(file.source());
+                String existingUrl = imageStore.acquireBySource(sourceHash);
+                if (existingUrl != null) {
+                    return existingUrl;
                 }
+            }
 
-                uploadedUrls.add(imageUrl);
-                log.info("圖片上傳成功: {}", imageUrl);
+            // 壓縮結果直接串流到儲存位置；串流上傳在解碼時同時計算原始內容雜湊
+            String knownSourceHash = sourceHash;
+            MessageDigest sourceDigest = knownSourceHash == null ? ImageStore.newDigest() : null;
+            AtomicReference<BufferedImage> scaledImage = new AtomicReference<>();
+            String imageUrl = imageStore.store(
+                    () -> knownSourceHash != null ? knownSourceHash : HexFormat.of().formatHex(sourceDigest.digest()),
+                    output -> scaledImage.set(compressImage(file, sourceDigest, output)));
+            storeVariants(imageUrl, scaledImage.get());
+
+            log.info("圖片上傳成功: {}", imageUrl);
+            return imageUrl;
+        } catch (Exception e) {
+            log.error("處理第 {} 個文件時發生錯誤: {}", index + 1, file.name(), e);
+            throw new RuntimeException("處理圖片失敗: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 從同一次解碼縮放後的圖片產生縮圖與中等尺寸版本；版本只是加速下載用，失敗時客戶端仍可使用原圖
+     */
+    private void storeVariants(String imageUrl, BufferedImage scaledImage) {
+        for (ImageVariant variant : ImageVariant.values()) {
+            int width = variant == ImageVariant.THUMBNAIL ? thumbnailWidth : mediumWidth;
+            if (width >= scaledImage.getWidth()) {
+                continue;
+            }
+            int height = Math.max(1, (int) ((double) scaledImage.getHeight() * width / scaledImage.getWidth()));
+            try {
+                imageStore.storeVariant(imageUrl, variant,
+                        output -> jpegEncoder.encodeDerived(imageResizer.resize(scaledImage, width, height), output));
             } catch (Exception e) {
-                log.error("處理第 {} 個文件時發生錯誤: {}", i + 1, file.getOriginalFilename(), e);
-                throw new RuntimeException("處理圖片失敗: " + e.getMessage(), e);
+                log.warn("產生圖片版本失敗: {} ({})", imageUrl, variant, e);
             }
         }
+    }
 
-        // 更新玩家圖片列表
-        if (player.getImageUrls() == null) {
-            player.setImageUrls(new ArrayList<>());
+    /**
+     * 刪除已儲存但未能寫入玩家圖片列表的圖片
+     */
+    private void deleteStoredImages(List<String> imageUrls) {
+        for (String imageUrl : imageUrls) {
+            try {
+                imageStore.release(imageUrl);
+            } catch (Exception e) {
+                log.warn("清理圖片失敗: {}", imageUrl, e);
+            }
         }
-        player.getImageUrls().addAll(uploadedUrls);
-        playerRepository.save(player);
-        log.info("玩家圖片列表已更新，總共 {} 張圖片", player.getImageUrls().size());
-
-        return uploadedUrls;
     }
 
     @Transactional
@@ -176,11 +269,7 @@ public class ImageService {
 
         if (player.getImageUrls() != null) {
             for (String imageUrl : player.getImageUrls()) {
-                if (imageUrl.startsWith("data:image") || imageUrl.startsWith("/api/images/") || imageUrl.startsWith("/uploads/")) {
-                    deleteFromLocal(imageUrl);
-                } else if (imageUrl.contains("storage.googleapis.com")) {
-                    deleteFromGCP(imageUrl);
-                }
+                imageStore.release(imageUrl);
             }
             player.getImageUrls().clear();
             playerRepository.save(player);
@@ -202,12 +291,8 @@ public class ImageService {
             throw new RuntimeException("圖片不存在");
         }
 
-        // 刪除文件
-        if (imageUrl.startsWith("data:image") || imageUrl.startsWith("/api/images/") || imageUrl.startsWith("/uploads/")) {
-            deleteFromLocal(imageUrl);
-        } else if (imageUrl.contains("storage.googleapis.com")) {
-            deleteFromGCP(imageUrl);
-        }
+        // 釋放圖片引用（沒有其他引用時刪除文件）
+        imageStore.release(imageUrl);
 
         // 從列表中移除
         player.getImageUrls().remove(imageUrl);
@@ -223,80 +308,64 @@ public class ImageService {
         }
     }
 
-    @Scheduled(fixedRate = 3600000) // 每小時檢查一次
-    @Transactional
-    public void cleanupOldImages() {
-        LocalDateTime threeHoursAgo = LocalDateTime.now().minusHours(3);
-        // 清理超過 3 小時的房間圖片
-        // 這裡可以根據實際需求實現清理邏輯
-        log.info("執行圖片清理任務");
-    }
-
-    private byte[] compressImage(MultipartFile file) throws IOException {
+    /**
+     * 解碼、縮放並編碼為 JPEG，編碼結果直接寫入 output，返回縮放後的圖片（用於產生較小的版本）
+     * 整個過程不保存完整的原始檔或編碼結果，記憶體只用於解碼與縮放後的點陣圖；
+     * sourceDigest 不為 null 時同時計算原始內容的雜湊
+     */
+    private BufferedImage compressImage(ImageUpload file, MessageDigest sourceDigest, ImageOutputStream output) throws IOException {
         try {
-            BufferedImage originalImage = ImageIO.read(file.getInputStream());
-            if (originalImage == null) {
-                log.error("無法讀取圖片，文件類型: {}", file.getContentType());
+            // 先讀取尺寸再以子取樣解碼，解碼出的點陣圖不會比 maxWidth 大太多
+            ImageDecoder.DecodedImage decoded;
+            try (InputStream input = sourceDigest != null
+                    ? new DigestInputStream(file.source().getInputStream(), sourceDigest)
+                    : file.source().getInputStream()) {
+                decoded = imageDecoder.decode(input, maxWidth);
+                if (sourceDigest != null) {
+                    // 解碼器不一定讀到結尾，讀完剩餘內容才能得到完整雜湊
+                    input.transferTo(OutputStream.nullOutputStream());
+                }
+            }
+            if (decoded == null || decoded.image() == null) {
+                log.error("無法讀取圖片，文件類型: {}", file.contentType());
                 throw new RuntimeException("無法讀取圖片，請確認文件格式正確");
             }
 
-            int originalWidth = originalImage.getWidth();
-            int originalHeight = originalImage.getHeight();
-            long originalSize = file.getSize();
+            BufferedImage originalImage = decoded.image();
+            int originalWidth = decoded.originalWidth();
+            int originalHeight = decoded.originalHeight();
+            long originalSize = file.size();
             log.debug("原始圖片尺寸: {}x{}, 大小: {} bytes", originalWidth, originalHeight, originalSize);
 
-            // 如果原始圖片已經小於 5MB，直接處理尺寸調整
-            if (originalSize <= maxImageSize) {
-                log.debug("圖片大小已符合要求，僅進行尺寸調整");
-                return compressImageWithSize(originalImage, originalWidth, originalHeight);
-            }
-
-            // 圖片大於 5MB，需要壓縮
-            log.info("圖片大小超過 5MB ({} bytes)，開始壓縮", originalSize);
-            
-            // 計算初始尺寸（先縮小尺寸）
+            // 計算目標尺寸（寬度限制在 minWidth ~ maxWidth 之間）
             int newWidth = originalWidth;
             int newHeight = originalHeight;
             
             if (originalWidth > maxWidth) {
                 newWidth = maxWidth;
                 newHeight = (int) ((double) originalHeight * maxWidth / originalWidth);
+                log.debug("圖片需要縮小到: {}x{}", newWidth, newHeight);
             } else if (originalWidth < minWidth) {
                 newWidth = minWidth;
                 newHeight = (int) ((double) originalHeight * minWidth / originalWidth);
+                log.debug("圖片需要放大到: {}x{}", newWidth, newHeight);
             }
 
-            // 迭代壓縮，直到文件大小小於 5MB
-            float quality = 0.9f; // 初始品質
-            float qualityStep = 0.1f; // 每次降低的品質
-            int maxIterations = 10; // 最大迭代次數
-            
-            for (int iteration = 0; iteration < maxIterations; iteration++) {
-                byte[] compressed = compressImageWithQuality(originalImage, newWidth, newHeight, quality);
-                
-                if (compressed.length <= maxImageSize) {
-                    log.info("圖片壓縮成功，最終大小: {} bytes (品質: {})", compressed.length, quality);
-                    return compressed;
-                }
-                
-                // 如果還是太大，降低品質或進一步縮小尺寸
-                if (quality > 0.3f) {
-                    quality -= qualityStep;
-                    log.debug("降低壓縮品質至: {}", quality);
-                } else {
-                    // 品質已經很低，進一步縮小尺寸
-                    newWidth = (int) (newWidth * 0.9);
-                    newHeight = (int) (newHeight * 0.9);
-                    quality = 0.7f; // 重置品質
-                    log.debug("進一步縮小尺寸至: {}x{}", newWidth, newHeight);
-                }
+            // 只縮放一次，之後的每次品質嘗試都重用縮放後的圖片
+            BufferedImage scaledImage = imageResizer.resize(originalImage, newWidth, newHeight);
+            rasterBytes.record(rasterSize(originalImage) + (scaledImage != originalImage ? rasterSize(scaledImage) : 0));
+
+            // 如果原始圖片已經小於 5MB，直接處理尺寸調整（串流上傳時大小未知，一律控制大小）
+            if (originalSize >= 0 && originalSize <= maxImageSize) {
+                log.debug("圖片大小已符合要求，僅進行尺寸調整");
+                jpegEncoder.encode(scaledImage, output);
+                return scaledImage;
             }
-            
-            // 如果還是太大，使用最後一次嘗試的結果
-            byte[] finalResult = compressImageWithQuality(originalImage, newWidth, newHeight, 0.3f);
-            log.warn("達到最大迭代次數，最終大小: {} bytes", finalResult.length);
-            return finalResult;
-            
+
+            // 圖片大於 5MB，以二分搜尋找出不超過大小限制的最高品質
+            log.info("圖片大小超過 5MB 或未知 ({} bytes)，開始壓縮", originalSize);
+            jpegEncoder.encodeWithinBudget(scaledImage, maxImageSize, output);
+            return scaledImage;
         } catch (IOException e) {
             log.error("壓縮圖片時發生 IO 錯誤", e);
             throw new RuntimeException("圖片處理失敗: " + e.getMessage(), e);
@@ -306,165 +375,8 @@ public class ImageService {
         }
     }
 
-    private byte[] compressImageWithSize(BufferedImage originalImage, int targetWidth, int targetHeight) throws IOException {
-        // 計算新尺寸
-        int newWidth = targetWidth;
-        int newHeight = targetHeight;
-
-        int originalWidth = originalImage.getWidth();
-        int originalHeight = originalImage.getHeight();
-
-        if (originalWidth > maxWidth) {
-            newWidth = maxWidth;
-            newHeight = (int) ((double) originalHeight * maxWidth / originalWidth);
-            log.debug("圖片需要縮小到: {}x{}", newWidth, newHeight);
-        } else if (originalWidth < minWidth) {
-            newWidth = minWidth;
-            newHeight = (int) ((double) originalHeight * minWidth / originalWidth);
-            log.debug("圖片需要放大到: {}x{}", newWidth, newHeight);
-        }
-
-        // 調整圖片大小
-        java.awt.Image scaledImage = originalImage.getScaledInstance(
-                newWidth, newHeight, java.awt.Image.SCALE_SMOOTH);
-        BufferedImage bufferedScaledImage = new BufferedImage(
-                newWidth, newHeight, BufferedImage.TYPE_INT_RGB);
-        
-        java.awt.Graphics2D g2d = bufferedScaledImage.createGraphics();
-        try {
-            g2d.drawImage(scaledImage, 0, 0, null);
-        } finally {
-            g2d.dispose();
-        }
-
-        // 轉換為 byte array
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        boolean written = ImageIO.write(bufferedScaledImage, "jpg", baos);
-        if (!written) {
-            log.error("無法將圖片寫入輸出流");
-            throw new RuntimeException("圖片處理失敗");
-        }
-        
-        return baos.toByteArray();
-    }
-
-    private byte[] compressImageWithQuality(BufferedImage originalImage, int targetWidth, int targetHeight, float quality) throws IOException {
-        // 調整圖片大小
-        java.awt.Image scaledImage = originalImage.getScaledInstance(
-                targetWidth, targetHeight, java.awt.Image.SCALE_SMOOTH);
-        BufferedImage bufferedScaledImage = new BufferedImage(
-                targetWidth, targetHeight, BufferedImage.TYPE_INT_RGB);
-        
-        java.awt.Graphics2D g2d = bufferedScaledImage.createGraphics();
-        try {
-            g2d.drawImage(scaledImage, 0, 0, null);
-        } finally {
-            g2d.dispose();
-        }
-
-        // 使用 ImageWriter 進行品質壓縮
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
-        ImageWriteParam param = writer.getDefaultWriteParam();
-        
-        if (param.canWriteCompressed()) {
-            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
-            param.setCompressionQuality(quality);
-        }
-        
-        try (ImageOutputStream ios = ImageIO.createImageOutputStream(baos)) {
-            writer.setOutput(ios);
-            writer.write(null, new javax.imageio.IIOImage(bufferedScaledImage, null, null), param);
-        } finally {
-            writer.dispose();
-        }
-        
-        return baos.toByteArray();
-    }
-
-    private String uploadToGCP(String fileName, byte[] imageData) {
-        try {
-            BlobId blobId = BlobId.of(bucketName, fileName);
-            BlobInfo blobInfo = BlobInfo.newBuilder(blobId)
-                    .setContentType("image/jpeg")
-                    .build();
-            
-            getStorage().create(blobInfo, imageData);
-            
-            // 返回公開 URL（需要設置 bucket 為公開或使用簽名 URL）
-            return String.format("https://storage.googleapis.com/%s/%s", bucketName, fileName);
-        } catch (Exception e) {
-            log.error("上傳圖片到 GCP 失敗", e);
-            throw new RuntimeException("上傳圖片失敗", e);
-        }
-    }
-
-    private String uploadToLocal(String fileName, byte[] imageData) {
-        try {
-            // 本地開發模式：保存到文件系統
-            Path uploadPath = Paths.get(uploadDir);
-            Path filePath = uploadPath.resolve(fileName);
-            
-            // 確保目錄存在
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
-            
-            // 寫入文件
-            Files.write(filePath, imageData);
-            log.info("圖片已保存到: {}", filePath.toAbsolutePath());
-            
-            // 返回相對路徑 URL（前端可以通過 /api/images/ 訪問）
-            return "/api/images/" + fileName;
-        } catch (Exception e) {
-            log.error("本地儲存圖片失敗", e);
-            throw new RuntimeException("上傳圖片失敗", e);
-        }
-    }
-
-    private void deleteFromLocal(String imageUrl) {
-        try {
-            // 從 URL 中提取文件名
-            // 支持格式: /api/images/{fileName} 或 /uploads/{fileName} 或 data:image/jpeg;base64,...
-            String fileName;
-            if (imageUrl.startsWith("data:image")) {
-                // Base64 格式，無法刪除文件（舊格式，保留兼容性）
-                log.warn("嘗試刪除 Base64 格式圖片，跳過文件刪除: {}", imageUrl);
-                return;
-            } else if (imageUrl.startsWith("/api/images/")) {
-                fileName = imageUrl.substring("/api/images/".length());
-            } else if (imageUrl.startsWith("/uploads/")) {
-                fileName = imageUrl.substring("/uploads/".length());
-            } else {
-                fileName = imageUrl.substring(imageUrl.lastIndexOf("/") + 1);
-            }
-            
-            Path filePath = Paths.get(uploadDir, fileName);
-            
-            if (Files.exists(filePath)) {
-                Files.delete(filePath);
-                log.info("已刪除本地圖片: {}", filePath.toAbsolutePath());
-            } else {
-                log.warn("嘗試刪除不存在的圖片文件: {}", filePath.toAbsolutePath());
-            }
-        } catch (Exception e) {
-            log.error("刪除本地圖片失敗: " + imageUrl, e);
-            throw new RuntimeException("刪除圖片失敗: " + e.getMessage(), e);
-        }
-    }
-
-    private void deleteFromGCP(String imageUrl) {
-        try {
-            if (bucketName == null || bucketName.isEmpty()) {
-                return;
-            }
-            // 從 URL 中提取檔案名
-            String fileName = imageUrl.substring(imageUrl.lastIndexOf("/") + 1);
-            BlobId blobId = BlobId.of(bucketName, fileName);
-            getStorage().delete(blobId);
-        } catch (Exception e) {
-            log.error("從 GCP 刪除圖片失敗: " + imageUrl, e);
-        }
+    private static long rasterSize(BufferedImage image) {
+        // 所有常見的點陣圖類型每像素最多 4 bytes
+        return (long) image.getWidth() * image.getHeight() * 4;
     }
 }
-
@@ -0,0 +1,532 @@
+package com.bluffmaster.service;
+
+import com.bluffmaster.model.StoredImage;
+import com.bluffmaster.repository.StoredImageRepository;
+import com.google.cloud.WriteChannel;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageException;
+import com.google.cloud.storage.StorageOptions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.stream.ImageOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * 以內容雜湊命名的圖片儲存（本地文件系統或 GCS）
+ * 壓縮結果先寫入暫存位置並同時計算 SHA-256，再以雜湊作為檔名登記到 stored_images；
+ * 相同內容只保存一份並以引用計數追蹤使用者，最後一個引用釋放時才刪除檔案。
+ * 原始上傳內容的雜湊也會記錄下來，重複上傳的圖片在壓縮前就能直接取得既有圖片。
+ * 檔案在調用方的交易提交後才刪除，交易回滾時資料列與檔案都保留
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ImageStore {
+
+    private static final Pattern CONTENT_HASH = Pattern.compile("[0-9a-f]{64}");
+    private static final String TEMP_PREFIX = "tmp/";
+
+    private final StoredImageRepository storedImageRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final HotImageCache hotImageCache;
+
+    @Value("${gcp.storage.bucket-name:}")
+    private String bucketName;
+
+    @Value("${gcp.storage.project-id:}")
+    private String projectId;
+
+    @Value("${gcp.storage.credentials-path:}")
+    private String credentialsPath;
+
+    @Value("${storage.type:local}")
+    private String storageType;
+
+    @Value("${storage.upload-dir:./uploads}")
+    private String uploadDir;
+
+    private Storage storage;
+    private Counter sourceHits;
+    private Counter contentHits;
+
+    // 交易提交後確認沒有重新上傳時使用的獨立交易
+    private TransactionTemplate requiresNewTemplate;
+
+    /**
+     * 把圖片內容寫入輸出流
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+        void writeTo(ImageOutputStream output) throws IOException;
+    }
+
+    @PostConstruct
+    public void init() {
+        sourceHits = Counter.builder("image.store.dedup.hits")
+                .description("重複上傳而直接引用既有圖片的次數")
+                .tag("stage", "source")
+                .register(meterRegistry);
+        contentHits = Counter.builder("image.store.dedup.hits")
+                .description("重複上傳而直接引用既有圖片的次數")
+                .tag("stage", "content")
+                .register(meterRegistry);
+
+        requiresNewTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        requiresNewTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        // 確保上傳目錄存在
+        if ("local".equals(storageType)) {
+            try {
+                Path uploadPath = Paths.get(uploadDir);
+                if (!Files.exists(uploadPath)) {
+                    Files.createDirectories(uploadPath);
+                    log.info("創建上傳目錄: {}", uploadPath.toAbsolutePath());
+                }
+            } catch (IOException e) {
+                log.error("無法創建上傳目錄: {}", uploadDir, e);
+            }
+        }
+    }
+
+    private Storage getStorage() {
+        if (storage == null && bucketName != null && !bucketName.isEmpty()) {
+            try {
+                if (credentialsPath != null && !credentialsPath.isEmpty()) {
+                    storage = StorageOptions.newBuilder()
+                            .setProjectId(projectId)
+                            .build()
+                            .getService();
+                } else {
+                    // 使用默認憑證
+                    storage = StorageOptions.getDefaultInstance().getService();
+                }
+            } catch (Exception e) {
+                log.warn("無法初始化 GCP Storage，將使用本地模式: " + e.getMessage());
+            }
+        }
+        return storage;
+    }
+
+    private boolean useGcp() {
+        return "gcp".equals(storageType) && bucketName != null && !bucketName.isEmpty();
+    }
+
+    /**
+     * 已有相同原始內容的圖片時增加一個引用並返回其 URL，否則返回 null
+     */
+    public String acquireBySource(String sourceHash) {
+        Optional<String> contentHash = storedImageRepository.findFirstBySourceHash(sourceHash)
+                .map(StoredImage::getId);
+        if (contentHash.isEmpty()) {
+            return null;
+        }
+        String url = transactionTemplate.execute(status ->
+                storedImageRepository.findByIdForUpdate(contentHash.get())
+                        .map(image -> {
+                            image.setRefCount(image.getRefCount() + 1);
+                            storedImageRepository.save(image);
+                            return image.getUrl();
+                        })
+                        .orElse(null));
+        if (url != null) {
+            sourceHits.increment();
+            log.info("重複上傳的圖片，直接引用既有圖片: {}", url);
+        }
+        return url;
+    }
+
+    /**
+     * 寫入圖片並登記一個引用，返回 URL；內容與既有圖片相同時丟棄新寫入的內容
+     * sourceHash 在寫入完成後才取值，以便串流上傳在解碼時同時計算原始內容的雜湊
+     */
+    public String store(Supplier<String> sourceHash, ContentWriter writer) {
+        return useGcp() ? storeToGCP(sourceHash, writer) : storeToLocal(sourceHash, writer);
+    }
+
+    private String storeToLocal(Supplier<String> sourceHash, ContentWriter writer) {
+        // 本地開發模式：保存到文件系統
+        Path uploadPath = Paths.get(uploadDir);
+        Path tempPath = uploadPath.resolve(UUID.randomUUID() + ".tmp");
+        try {
+            // 確保目錄存在
+            Files.createDirectories(uploadPath);
+
+            // 編碼結果直接寫入暫存文件，同時計算內容雜湊
+            MessageDigest digest = newDigest();
+            try (ImageOutputStream output = new ByteCountingImageOutputStream(new DigestOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tempPath)), digest))) {
+                writer.writeTo(output);
+            }
+
+            String contentHash = HexFormat.of().formatHex(digest.digest());
+            String fileName = contentHash + ".jpg";
+            // 返回相對路徑 URL（前端可以通過 /api/images/ 訪問）
+            String url = register(contentHash, sourceHash.get(), "/api/images/" + fileName, () -> {
+                Files.move(tempPath, uploadPath.resolve(fileName),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                return null;
+            });
+            log.info("圖片已保存到: {}", uploadPath.resolve(fileName).toAbsolutePath());
+            return url;
+        } catch (Exception e) {
+            log.error("本地儲存圖片失敗", e);
+            throw e instanceof RuntimeException re ? re : new RuntimeException("上傳圖片失敗", e);
+        } finally {
+            try {
+                Files.deleteIfExists(tempPath);
+            } catch (IOException ignored) {
+                // 清理失敗不影響結果
+            }
+        }
+    }
+
+    private String storeToGCP(Supplier<String> sourceHash, ContentWriter writer) {
+        BlobId tempBlobId = BlobId.of(bucketName, TEMP_PREFIX + UUID.randomUUID() + ".jpg");
+        try {
+            BlobInfo blobInfo = BlobInfo.newBuilder(tempBlobId)
+                    .setContentType("image/jpeg")
+                    .build();
+
+            // 使用可續傳上傳的 WriteChannel，編碼結果分塊串流到 GCS，同時計算內容雜湊
+            MessageDigest digest = newDigest();
+            try (WriteChannel channel = getStorage().writer(blobInfo);
+                 ImageOutputStream output = new ByteCountingImageOutputStream(
+                         new DigestOutputStream(Channels.newOutputStream(channel), digest))) {
+                writer.writeTo(output);
+            }
+
+            String contentHash = HexFormat.of().formatHex(digest.digest());
+            String fileName = contentHash + ".jpg";
+            // 返回公開 URL（需要設置 bucket 為公開或使用簽名 URL）
+            return register(contentHash, sourceHash.get(),
+                    String.format("https://storage.googleapis.com/%s/%s", bucketName, fileName), () ->
+                            getStorage().copy(Storage.CopyRequest.of(tempBlobId, BlobId.of(bucketName, fileName)))
+                                    .getResult()
+                                    .getGeneration());
+        } catch (Exception e) {
+            log.error("上傳圖片到 GCP 失敗", e);
+            throw e instanceof RuntimeException re ? re : new RuntimeException("上傳圖片失敗", e);
+        } finally {
+            try {
+                getStorage().delete(tempBlobId);
+            } catch (Exception ignored) {
+                // 上傳未完成時物件不存在
+            }
+        }
+    }
+
+    /**
+     * 寫入原圖的較小尺寸版本（與原圖放在同一位置），版本已存在時不調用 writer；
+     * 只有以內容雜湊命名的圖片有版本，版本與原圖共用引用計數，隨原圖一起刪除
+     */
+    public void storeVariant(String imageUrl, ImageVariant variant, ContentWriter writer) {
+        String contentHash = contentHashOf(imageUrl);
+        if (contentHash != null) {
+            storeNamed(variant.fileNameOf(contentHash), writer);
+        }
+    }
+
+    /**
+     * 以固定檔名寫入不計引用的圖片（例如假圖），檔案已存在時不調用 writer，返回 URL
+     */
+    public String storeNamed(String fileName, ContentWriter writer) {
+        try {
+            if (useGcp()) {
+                BlobId blobId = BlobId.of(bucketName, fileName);
+                if (getStorage().get(blobId) == null) {
+                    BlobInfo blobInfo = BlobInfo.newBuilder(blobId)
+                            .setContentType("image/jpeg")
+                            .build();
+                    try (WriteChannel channel = getStorage().writer(blobInfo);
+                         ImageOutputStream output = new ByteCountingImageOutputStream(Channels.newOutputStream(channel))) {
+                        writer.writeTo(output);
+                    }
+                }
+                return String.format("https://storage.googleapis.com/%s/%s", bucketName, fileName);
+            }
+
+            Path uploadPath = Paths.get(uploadDir);
+            Path target = uploadPath.resolve(fileName);
+            if (!Files.exists(target)) {
+                Files.createDirectories(uploadPath);
+                Path tempPath = uploadPath.resolve(UUID.randomUUID() + ".tmp");
+                try {
+                    try (ImageOutputStream output = new ByteCountingImageOutputStream(
+                            new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+                        writer.writeTo(output);
+                    }
+                    // 同名檔案的內容相同，同時寫入時覆蓋即可
+                    Files.move(tempPath, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(tempPath);
+                }
+            }
+            return "/api/images/" + fileName;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 在 stored_images 中登記一個引用；內容是新的時才在持有資料列鎖的情況下執行 publish 把暫存內容發布到正式檔名
+     * （publish 返回 GCS 物件的 generation）。兩個上傳同時寫入相同的新內容時，後插入者會因主鍵衝突重試並改為增加引用
+     */
+    private String register(String contentHash, String sourceHash, String url, Publisher publish) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    Optional<StoredImage> existing = storedImageRepository.findByIdForUpdate(contentHash);
+                    if (existing.isPresent()) {
+                        StoredImage image = existing.get();
+                        image.setRefCount(image.getRefCount() + 1);
+                        storedImageRepository.save(image);
+                        contentHits.increment();
+                        log.info("圖片內容與既有圖片相同，直接引用: {}", image.getUrl());
+                        return image.getUrl();
+                    }
+
+                    StoredImage image = storedImageRepository.saveAndFlush(StoredImage.builder()
+                            .id(contentHash)
+                            .sourceHash(sourceHash)
+                            .url(url)
+                            .refCount(1)
+                            .build());
+                    try {
+                        image.setBlobGeneration(publish.publish());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return url;
+                });
+            } catch (DataIntegrityViolationException | ConcurrencyFailureException e) {
+                if (attempt >= 2) {
+                    throw e;
+                }
+                log.debug("登記圖片時發生並發衝突，重試: {}", contentHash);
+            }
+        }
+    }
+
+    /**
+     * 釋放一個引用，最後一個引用釋放時在交易提交後刪除檔案；未登記的舊圖片（UUID 檔名）直接刪除
+     * 在調用方的交易中執行時加入該交易，外層交易回滾時引用數與檔案都不變
+     */
+    public void release(String imageUrl) {
+        String contentHash = contentHashOf(imageUrl);
+        if (contentHash == null) {
+            afterCommit(() -> deleteFile(imageUrl));
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Optional<StoredImage> existing = storedImageRepository.findByIdForUpdate(contentHash);
+            if (existing.isPresent() && existing.get().getRefCount() > 1) {
+                StoredImage image = existing.get();
+                image.setRefCount(image.getRefCount() - 1);
+                storedImageRepository.save(image);
+                log.debug("圖片引用數減少為 {}: {}", image.getRefCount(), imageUrl);
+                return;
+            }
+
+            Long generation = existing.map(StoredImage::getBlobGeneration).orElse(null);
+            existing.ifPresent(storedImageRepository::delete);
+            afterCommit(() -> deleteUnreferenced(imageUrl, contentHash, generation));
+        });
+    }
+
+    /**
+     * 在目前交易提交後執行（沒有交易時立即執行），失敗只記錄日誌
+     */
+    private void afterCommit(Runnable action) {
+        Runnable safeAction = () -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                log.warn("刪除圖片檔案失敗", e);
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            safeAction.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                safeAction.run();
+            }
+        });
+    }
+
+    /**
+     * 刪除已提交為無引用的圖片及其版本
+     * 刪除前可能已有人重新上傳相同內容：GCS 原圖以登記時的 generation 作為前置條件，重新上傳後的新物件 generation 不同，不會被刪除；
+     * 版本沒有記錄 generation（重新上傳時版本已存在就不會重寫），因此與本地檔案一樣在獨立交易中持有資料列鎖確認仍未登記才刪除（與 register 互斥）
+     */
+    private void deleteUnreferenced(String imageUrl, String contentHash, Long generation) {
+        boolean gcp = imageUrl.contains("storage.googleapis.com");
+        if (gcp) {
+            deleteFromGCP(imageUrl, generation);
+        }
+        requiresNewTemplate.executeWithoutResult(status -> {
+            if (storedImageRepository.findByIdForUpdate(contentHash).isPresent()) {
+                log.debug("圖片已重新上傳，保留檔案: {}", imageUrl);
+                return;
+            }
+            if (!gcp) {
+                deleteFile(imageUrl);
+            }
+            deleteVariants(imageUrl, contentHash);
+        });
+    }
+
+    private String contentHashOf(String imageUrl) {
+        String fileName = imageUrl.substring(imageUrl.lastIndexOf("/") + 1);
+        if (!fileName.endsWith(".jpg")) {
+            return null;
+        }
+        String hash = fileName.substring(0, fileName.length() - ".jpg".length());
+        return CONTENT_HASH.matcher(hash).matches() ? hash : null;
+    }
+
+    private void deleteVariants(String imageUrl, String contentHash) {
+        for (ImageVariant variant : ImageVariant.values()) {
+            String fileName = variant.fileNameOf(contentHash);
+            if (imageUrl.contains("storage.googleapis.com")) {
+                deleteFromGCP(fileName);
+                continue;
+            }
+            try {
+                hotImageCache.invalidate(fileName);
+                Files.deleteIfExists(Paths.get(uploadDir, fileName));
+            } catch (IOException e) {
+                log.warn("刪除圖片版本失敗: {}", fileName, e);
+            }
+        }
+    }
+
+    private void deleteFile(String imageUrl) {
+        if (imageUrl.startsWith("data:image") || imageUrl.startsWith("/api/images/") || imageUrl.startsWith("/uploads/")) {
+            deleteFromLocal(imageUrl);
+        } else if (imageUrl.contains("storage.googleapis.com")) {
+            deleteFromGCP(imageUrl);
+        }
+    }
+
+    private void deleteFromLocal(String imageUrl) {
+        try {
+            // 從 URL 中提取文件名
+            // 支持格式: /api/images/{fileName} 或 /uploads/{fileName} 或 data:image/jpeg;base64,...
+            String fileName;
+            if (imageUrl.startsWith("data:image")) {
+                // Base64 格式，無法刪除文件（舊格式，保留兼容性）
+                log.warn("嘗試刪除 Base64 格式圖片，跳過文件刪除: {}", imageUrl);
+                return;
+            } else if (imageUrl.startsWith("/api/images/")) {
+                fileName = imageUrl.substring("/api/images/".length());
+            } else if (imageUrl.startsWith("/uploads/")) {
+                fileName = imageUrl.substring("/uploads/".length());
+            } else {
+                fileName = imageUrl.substring(imageUrl.lastIndexOf("/") + 1);
+            }
+
+            Path filePath = Paths.get(uploadDir, fileName);
+
+            hotImageCache.invalidate(fileName);
+            if (Files.exists(filePath)) {
+                Files.delete(filePath);
+                log.info("已刪除本地圖片: {}", filePath.toAbsolutePath());
+            } else {
+                log.warn("嘗試刪除不存在的圖片文件: {}", filePath.toAbsolutePath());
+            }
+        } catch (Exception e) {
+            log.error("刪除本地圖片失敗: " + imageUrl, e);
+            throw new RuntimeException("刪除圖片失敗: " + e.getMessage(), e);
+        }
+    }
+
+    private void deleteFromGCP(String imageUrl) {
+        deleteFromGCP(imageUrl, null);
+    }
+
+    private void deleteFromGCP(String imageUrl, Long generation) {
+        try {
+            if (bucketName == null || bucketName.isEmpty()) {
+                return;
+            }
+            // 從 URL 中提取檔案名
+            String fileName = imageUrl.substring(imageUrl.lastIndexOf("/") + 1);
+            BlobId blobId = BlobId.of(bucketName, fileName);
+            if (generation != null) {
+                getStorage().delete(blobId, Storage.BlobSourceOption.generationMatch(generation));
+            } else {
+                getStorage().delete(blobId);
+            }
+        } catch (StorageException e) {
+            if (e.getCode() == 412) {
+                log.debug("圖片已重新上傳，保留 GCS 物件: {}", imageUrl);
+                return;
+            }
+            log.error("從 GCP 刪除圖片失敗: " + imageUrl, e);
+        } catch (Exception e) {
+            log.error("從 GCP 刪除圖片失敗: " + imageUrl, e);
+        }
+    }
+
+    /**
+     * 計算內容的 SHA-256（十六進位）
+     */
+    static String hash(InputStreamSource source) throws IOException {
+        MessageDigest digest = newDigest();
+        try (InputStream input = source.getInputStream();
+             OutputStream sink = new DigestOutputStream(OutputStream.nullOutputStream(), digest)) {
+            input.transferTo(sink);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Publisher {
+        Long publish() throws IOException;
+    }
+}
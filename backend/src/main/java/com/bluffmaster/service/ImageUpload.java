@@ -0,0 +1,16 @@
+package com.bluffmaster.service;
+
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * 待處理的上傳圖片來源
+ * 可以是 multipart 的檔案部分，也可以是直接串流的請求內容；size 未知時為 -1，
+ * repeatable 表示 source 可以多次開啟讀取（串流的請求內容只能讀一次）
+ */
+public record ImageUpload(String name, String contentType, long size, InputStreamSource source, boolean repeatable) {
+
+    public static ImageUpload of(MultipartFile file) {
+        return new ImageUpload(file.getOriginalFilename(), file.getContentType(), file.getSize(), file, true);
+    }
+}
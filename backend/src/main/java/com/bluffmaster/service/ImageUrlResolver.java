@@ -0,0 +1,164 @@
+package com.bluffmaster.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 外部圖片 URL 的非阻塞驗證
+ * 以 HEAD 請求跟隨重新導向取得最終 URL，只有 2xx 才視為有效；整個過程以非同步 HttpClient 執行，不佔用呼叫的執行緒，
+ * 包括所有重新導向的總時間不超過 deadline（逾時視為無效）。
+ * 結果依 URL 快取（有效 ttl、無效 negative-ttl），同一 URL 同時只發出一次請求，其他呼叫共用同一個 future
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ImageUrlResolver {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${game.url-resolver.ttl:600000}")
+    private long ttl;
+
+    @Value("${game.url-resolver.negative-ttl:60000}")
+    private long negativeTtl;
+
+    @Value("${game.url-resolver.timeout:5000}")
+    private long timeout;
+
+    @Value("${game.url-resolver.max-redirects:10}")
+    private int maxRedirects;
+
+    @Value("${game.url-resolver.deadline:10000}")
+    private long deadline;
+
+    // URL -> 解析結果（進行中或已完成）
+    private final Map<String, Resolution> cache = new ConcurrentHashMap<>();
+
+    private HttpClient client;
+    private Counter hits;
+    private Counter misses;
+
+    @PostConstruct
+    public void init() {
+        client = HttpClient.newBuilder()
+                // 自行跟隨重新導向以取得最終 URL 並限制次數
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofMillis(timeout))
+                .build();
+
+        hits = Counter.builder("game.url.resolve.requests")
+                .description("URL 驗證請求數（hit 包括共用進行中的請求）")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        misses = Counter.builder("game.url.resolve.requests")
+                .description("URL 驗證請求數（hit 包括共用進行中的請求）")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("game.url.resolve.cached", cache, Map::size)
+                .description("快取中的 URL 驗證結果數")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 驗證 URL 並返回跟隨重新導向後的最終 URL；無效、逾時或不是 http(s) 時返回 empty（不會以異常完成）
+     */
+    public CompletableFuture<Optional<String>> resolve(String url) {
+        if (url == null || !(url.startsWith("http://") || url.startsWith("https://"))) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        long now = System.currentTimeMillis();
+        Resolution own = new Resolution();
+        Resolution current = cache.compute(url, (key, existing) ->
+                existing != null && existing.expiresAt > now ? existing : own);
+        if (current != own) {
+            hits.increment();
+            return current.future;
+        }
+
+        misses.increment();
+        // 每次請求各自有 timeout，但一連串緩慢的重新導向仍需要總時間上限
+        follow(url, 0).orTimeout(deadline, TimeUnit.MILLISECONDS).whenComplete((result, e) -> {
+            Optional<String> resolved = e == null ? result : Optional.empty();
+            if (e != null) {
+                log.warn("驗證圖片 URL 失敗: {} ({})", url, e instanceof TimeoutException ? "逾時" : e.getMessage());
+            }
+            own.expiresAt = System.currentTimeMillis() + (resolved.isPresent() ? ttl : negativeTtl);
+            own.future.complete(resolved);
+        });
+        return own.future;
+    }
+
+    /**
+     * 驗證 URL 是否有效（結果同 resolve）
+     */
+    public CompletableFuture<Boolean> validate(String url) {
+        return resolve(url).thenApply(Optional::isPresent);
+    }
+
+    /**
+     * 清除過期的結果（進行中的請求不會過期）
+     */
+    @Scheduled(fixedDelayString = "${game.url-resolver.negative-ttl:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        cache.values().removeIf(resolution -> resolution.expiresAt <= now);
+    }
+
+    private CompletableFuture<Optional<String>> follow(String url, int redirects) {
+        URI uri;
+        HttpRequest request;
+        try {
+            uri = URI.create(url);
+            request = HttpRequest.newBuilder(uri)
+                    .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                    .timeout(Duration.ofMillis(timeout))
+                    .header("User-Agent", "Mozilla/5.0")
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .thenCompose(response -> {
+                    int status = response.statusCode();
+                    Optional<String> location = response.headers().firstValue("Location");
+                    if (status >= 300 && status < 400 && location.isPresent()) {
+                        if (redirects >= maxRedirects) {
+                            log.warn("跟隨重定向超過最大次數: {}", url);
+                            return CompletableFuture.completedFuture(Optional.empty());
+                        }
+                        // Location 可以是相對路徑
+                        return follow(uri.resolve(location.get()).toString(), redirects + 1);
+                    }
+                    if (status >= 200 && status < 300) {
+                        return CompletableFuture.completedFuture(Optional.of(url));
+                    }
+                    log.warn("圖片 URL 無效 ({}): {}", status, url);
+                    return CompletableFuture.completedFuture(Optional.empty());
+                });
+    }
+
+    private static class Resolution {
+        private final CompletableFuture<Optional<String>> future = new CompletableFuture<>();
+        // 完成前為 Long.MAX_VALUE（不過期），完成後依結果設定
+        private volatile long expiresAt = Long.MAX_VALUE;
+    }
+}
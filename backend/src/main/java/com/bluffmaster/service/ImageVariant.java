@@ -0,0 +1,29 @@
+package com.bluffmaster.service;
+
+/**
+ * 上傳時一併產生的較小尺寸版本
+ * 原圖 URL 為 .../{contentHash}.jpg，各版本以 .../{contentHash}-{suffix}.jpg 保存在同一位置，
+ * 客戶端把原圖 URL 的 .jpg 換成 -thumb.jpg 或 -medium.jpg 即可取得對應版本
+ */
+public enum ImageVariant {
+
+    THUMBNAIL("thumb"),
+    MEDIUM("medium");
+
+    private final String suffix;
+
+    ImageVariant(String suffix) {
+        this.suffix = suffix;
+    }
+
+    public String getSuffix() {
+        return suffix;
+    }
+
+    /**
+     * 原圖檔名（不含副檔名）對應的版本檔名
+     */
+    public String fileNameOf(String baseName) {
+        return baseName + "-" + suffix + ".jpg";
+    }
+}
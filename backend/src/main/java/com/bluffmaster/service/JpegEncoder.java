@@ -0,0 +1,215 @@
+package com.bluffmaster.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * JPEG 編碼器
+ * 需要控制檔案大小時，根據每像素可用的位元組數預測起始品質，再以二分搜尋找出不超過預算的最高品質，
+ * 每張圖片最多編碼 MAX_ATTEMPTS 次（最低品質仍超出預算時才縮小尺寸重試），寫出的是搜尋中保留的最佳結果
+ */
+@Component
+@Slf4j
+public class JpegEncoder {
+
+    private static final float MIN_QUALITY = 0.3f;
+    private static final float MAX_QUALITY = 0.9f;
+    private static final float QUALITY_TOLERANCE = 0.05f;
+    private static final int MAX_ATTEMPTS = 4;
+    private static final int MAX_SHRINKS = 3;
+
+    // 細節豐富的照片在品質 0.9 時大約每像素 0.6 bytes，用於預測起始品質
+    private static final double FULL_QUALITY_BYTES_PER_PIXEL = 0.6;
+
+    private final ImageResizer imageResizer;
+    private final DistributionSummary encodeAttempts;
+
+    public JpegEncoder(ImageResizer imageResizer, MeterRegistry meterRegistry) {
+        this.imageResizer = imageResizer;
+        this.encodeAttempts = DistributionSummary.builder("image.encode.attempts")
+                .description("每張上傳圖片的 JPEG 編碼次數")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 以 ImageIO 預設品質編碼上傳的圖片，直接寫入輸出流
+     */
+    public void encode(BufferedImage image, ImageOutputStream output) throws IOException {
+        encodeDerived(image, output);
+        encodeAttempts.record(1);
+    }
+
+    /**
+     * 以 ImageIO 預設品質編碼縮圖、假圖等衍生圖片，不計入上傳圖片的編碼次數
+     */
+    public void encodeDerived(BufferedImage image, ImageOutputStream output) throws IOException {
+        boolean written = ImageIO.write(image, "jpg", output);
+        if (!written) {
+            log.error("無法將圖片寫入輸出流");
+            throw new RuntimeException("圖片處理失敗");
+        }
+    }
+
+    /**
+     * 編碼為不超過 maxBytes 的 JPEG（盡量使用最高品質）並寫入輸出流
+     * 搜尋品質時保留目前最好（不超出預算的最高品質）的編碼結果，最後直接寫出，不再重新編碼；
+     * 搜尋最多編碼 MAX_ATTEMPTS 次（包括確認最低品質），最低品質仍超出預算時縮小尺寸重試，最多 MAX_SHRINKS 次
+     */
+    public void encodeWithinBudget(BufferedImage image, long maxBytes, ImageOutputStream output) throws IOException {
+        int attempts = 0;
+        float low = MIN_QUALITY;
+        float high = MAX_QUALITY;
+        float quality = predictQuality(image, maxBytes);
+        Encoded best = null;
+        long lastSize = 0;
+
+        while (attempts < MAX_ATTEMPTS) {
+            Encoded encoded = encodeToBuffer(image, quality, maxBytes);
+            attempts++;
+            lastSize = encoded.size();
+            if (encoded.fits()) {
+                if (best == null || quality > best.quality()) {
+                    best = encoded;
+                }
+                low = quality;
+            } else {
+                high = quality;
+            }
+
+            if (high - low < QUALITY_TOLERANCE) {
+                if (best != null || high <= MIN_QUALITY) {
+                    break;
+                }
+                // 搜尋範圍內都超出預算，確認最低品質
+                quality = MIN_QUALITY;
+            } else if (best == null && attempts == MAX_ATTEMPTS - 1) {
+                // 只剩最後一次且還沒有符合預算的結果，直接確認最低品質
+                quality = MIN_QUALITY;
+            } else {
+                quality = (low + high) / 2;
+            }
+        }
+
+        int shrinks = 0;
+        while (best == null) {
+            if (shrinks == MAX_SHRINKS) {
+                log.error("縮小 {} 次後仍超出大小限制: {} bytes", shrinks, lastSize);
+                throw new RuntimeException("圖片處理失敗");
+            }
+            // 最低品質仍然太大，按超出比例縮小尺寸後重新確認
+            double scale = Math.sqrt((double) maxBytes / lastSize) * 0.9;
+            int width = Math.max(1, (int) (image.getWidth() * scale));
+            int height = Math.max(1, (int) (image.getHeight() * scale));
+            log.debug("最低品質仍超出大小限制，縮小尺寸至: {}x{}", width, height);
+            image = imageResizer.resize(image, width, height);
+            Encoded encoded = encodeToBuffer(image, MIN_QUALITY, maxBytes);
+            attempts++;
+            shrinks++;
+            lastSize = encoded.size();
+            if (encoded.fits()) {
+                best = encoded;
+            }
+        }
+
+        best.writeTo(output);
+        encodeAttempts.record(attempts);
+        log.info("圖片壓縮完成，最終大小: {} bytes (品質: {}, 編碼次數: {})", best.size(), best.quality(), attempts);
+    }
+
+    private float predictQuality(BufferedImage image, long maxBytes) {
+        double bytesPerPixel = (double) maxBytes / ((long) image.getWidth() * image.getHeight());
+        double predicted = MAX_QUALITY * Math.sqrt(bytesPerPixel / FULL_QUALITY_BYTES_PER_PIXEL);
+        return (float) Math.max(MIN_QUALITY, Math.min(MAX_QUALITY, predicted));
+    }
+
+    /**
+     * 以指定品質編碼，結果不超過 maxBytes 時保留內容；超出時只計算大小（不保存超出預算的內容）
+     */
+    private Encoded encodeToBuffer(BufferedImage image, float quality, long maxBytes) throws IOException {
+        BudgetBuffer buffer = new BudgetBuffer(maxBytes);
+        try (ByteCountingImageOutputStream counter = new ByteCountingImageOutputStream(buffer)) {
+            encode(image, quality, counter);
+            return new Encoded(quality, counter.length(), buffer.overflowed ? null : buffer);
+        }
+    }
+
+    private void encode(BufferedImage image, float quality, ImageOutputStream output) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+
+        if (param.canWriteCompressed()) {
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+        }
+
+        try {
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private record Encoded(float quality, long size, BudgetBuffer content) {
+
+        boolean fits() {
+            return content != null;
+        }
+
+        void writeTo(ImageOutputStream output) throws IOException {
+            output.write(content.buffer(), 0, content.size());
+        }
+    }
+
+    /**
+     * 最多保存 limit 位元組的緩衝區，超出後丟棄已保存的內容並忽略之後的寫入（大小由外層的計數流計算）
+     */
+    private static final class BudgetBuffer extends ByteArrayOutputStream {
+
+        private final long limit;
+        private boolean overflowed;
+
+        private BudgetBuffer(long limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            if (!overflowed && reserve(1)) {
+                super.write(b);
+            }
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            if (!overflowed && reserve(len)) {
+                super.write(b, off, len);
+            }
+        }
+
+        private boolean reserve(int len) {
+            if (count + (long) len <= limit) {
+                return true;
+            }
+            overflowed = true;
+            buf = new byte[0];
+            count = 0;
+            return false;
+        }
+
+        private byte[] buffer() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.bluffmaster.service;
+
+import com.bluffmaster.model.GameRound;
+import com.bluffmaster.model.Player;
+import com.bluffmaster.model.Room;
+import com.bluffmaster.repository.GameRoundRepository;
+import com.bluffmaster.repository.PlayerRepository;
+import com.bluffmaster.repository.RoomRepository;
+import com.bluffmaster.state.GameStateEngine;
+import com.bluffmaster.state.RoomCommandExecutor;
+import com.bluffmaster.state.RoomVersions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 過期房間清理
+ * 最後更新時間超過 game.room-timeout 的房間，連同玩家、回合（含投票）與圖片一起刪除。
+ * 每次執行分批處理且有數量上限，批次之間暫停，避免長時間佔用資料庫；
+ * 每個房間在獨立的交易中刪除，並放進房間的命令信箱執行，與該房間的遊戲指令串行；圖片引用在交易提交後才釋放
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RoomExpirySweeper {
+
+    private final RoomRepository roomRepository;
+    private final PlayerRepository playerRepository;
+    private final GameRoundRepository gameRoundRepository;
+    private final ImageStore imageStore;
+    private final GameStateEngine gameStateEngine;
+    private final RoomVersions roomVersions;
+    private final RoomCommandExecutor roomCommandExecutor;
+    private final HotImageCache hotImageCache;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${game.room-timeout}")
+    private long roomTimeout;
+
+    @Value("${game.cleanup.batch-size:20}")
+    private int batchSize;
+
+    @Value("${game.cleanup.max-rooms-per-run:200}")
+    private int maxRoomsPerRun;
+
+    @Value("${game.cleanup.batch-pause:200}")
+    private long batchPause;
+
+    private Counter reclaimedRooms;
+    private Counter reclaimedPlayers;
+    private Counter reclaimedRounds;
+    private Counter reclaimedImages;
+
+    @PostConstruct
+    public void init() {
+        reclaimedRooms = reclaimedCounter("rooms");
+        reclaimedPlayers = reclaimedCounter("players");
+        reclaimedRounds = reclaimedCounter("rounds");
+        reclaimedImages = reclaimedCounter("images");
+    }
+
+    private Counter reclaimedCounter(String type) {
+        return Counter.builder("room.cleanup.reclaimed")
+                .description("過期房間清理回收的項目數")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${game.cleanup.interval:300000}")
+    public void sweep() {
+        LocalDateTime cutoff = LocalDateTime.now().minusSeconds(roomTimeout);
+        Set<String> failedRoomIds = new HashSet<>();
+        int processed = 0;
+        int purged = 0;
+
+        while (processed < maxRoomsPerRun) {
+            int limit = Math.min(batchSize, maxRoomsPerRun - processed);
+            // 刪除失敗的房間仍會被查到，多查一些並跳過，避免每批都卡在同一個房間
+            List<String> roomIds = roomRepository.findExpiredRoomIds(cutoff, PageRequest.of(0, limit + failedRoomIds.size()))
+                    .stream()
+                    .filter(roomId -> !failedRoomIds.contains(roomId))
+                    .limit(limit)
+                    .toList();
+            if (roomIds.isEmpty()) {
+                break;
+            }
+
+            for (String roomId : roomIds) {
+                try {
+                    if (roomCommandExecutor.call(roomId, () -> purgeRoom(roomId, cutoff)).join()) {
+                        purged++;
+                    }
+                } catch (Exception e) {
+                    log.error("清理過期房間失敗: {}", roomId, e);
+                    failedRoomIds.add(roomId);
+                }
+                processed++;
+            }
+
+            if (roomIds.size() < limit) {
+                break;
+            }
+            try {
+                Thread.sleep(batchPause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        if (processed > 0) {
+            log.info("過期房間清理完成，已刪除 {} 個房間，失敗 {} 個", purged, failedRoomIds.size());
+        }
+    }
+
+    /**
+     * 刪除一個過期房間（在房間的命令信箱中執行），房間已被刪除或在期間內重新活躍時返回 false
+     */
+    private boolean purgeRoom(String roomId, LocalDateTime cutoff) {
+        boolean expired = roomRepository.findById(roomId)
+                .map(room -> room.getUpdatedAt().isBefore(cutoff))
+                .orElse(false);
+        if (!expired) {
+            return false;
+        }
+
+        List<String> imageUrls = transactionTemplate.execute(status -> {
+            // 鎖定房間，多個節點同時清理時只有一個會刪除（其他節點看到房間已不存在）
+            Room room = roomRepository.findByIdForUpdate(roomId).orElse(null);
+            if (room == null || !room.getUpdatedAt().isBefore(cutoff)) {
+                return null;
+            }
+
+            // 確認仍然過期後才丟棄記憶體中的遊戲狀態，避免排程寫回把已刪除的回合重新寫入
+            gameStateEngine.discard(roomId);
+
+            List<GameRound> rounds = gameRoundRepository.findByRoomId(roomId);
+            gameRoundRepository.deleteAll(rounds);
+
+            List<Player> players = playerRepository.findWithImagesByRoomId(roomId);
+            List<String> urls = new ArrayList<>();
+            for (Player player : players) {
+                if (player.getImageUrls() != null) {
+                    urls.addAll(player.getImageUrls());
+                }
+            }
+            playerRepository.deleteAll(players);
+            roomRepository.delete(room);
+
+            reclaimedRounds.increment(rounds.size());
+            reclaimedPlayers.increment(players.size());
+            reclaimedRooms.increment();
+            log.debug("已刪除過期房間 {}，玩家 {} 位，回合 {} 個", roomId, players.size(), rounds.size());
+            return urls;
+        });
+        if (imageUrls == null) {
+            return false;
+        }
+        roomVersions.remove(roomId);
+        hotImageCache.release(roomId);
+
+        // 玩家已刪除，釋放圖片引用（沒有其他引用時刪除檔案）
+        for (String imageUrl : imageUrls) {
+            try {
+                imageStore.release(imageUrl);
+                reclaimedImages.increment();
+            } catch (Exception e) {
+                log.warn("釋放過期房間圖片失敗: {}", imageUrl, e);
+            }
+        }
+        return true;
+    }
+}
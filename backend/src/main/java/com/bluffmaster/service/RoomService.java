@@ -5,6 +5,8 @@ import com.bluffmaster.model.Player;
 import com.bluffmaster.model.Room;
 import com.bluffmaster.repository.PlayerRepository;
 import com.bluffmaster.repository.RoomRepository;
+import com.bluffmaster.state.GameStateEngine;
+import com.bluffmaster.state.RoomVersions;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -12,6 +14,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -23,6 +26,8 @@ public class RoomService {
     private final RoomRepository roomRepository;
     private final PlayerRepository playerRepository;
     private final ImageService imageService;
+    private final GameStateEngine gameStateEngine;
+    private final RoomVersions roomVersions;
     private final SecureRandom random = new SecureRandom();
 
     @Transactional
@@ -61,13 +66,15 @@ public class RoomService {
         room.getPlayerIds().add(host.getId());
         room = roomRepository.save(room);
 
-        return convertToDTO(room, host.getId());
+        RoomDTO roomDTO = buildRoomDTO(room, List.of(host), host.getId());
+        roomDTO.setVersion(roomVersions.current(room.getId()));
+        return roomDTO;
     }
 
     @Transactional
     public RoomDTO joinRoom(JoinRoomRequest request) {
-        Room room = roomRepository.findByRoomCode(request.getRoomCode())
-                .orElseThrow(() -> new RuntimeException("房間不存在"));
+        Room room = lockRoom(roomRepository.findIdByRoomCode(request.getRoomCode())
+                .orElseThrow(() -> new RuntimeException("房間不存在")));
 
         if (room.getStatus() != Room.RoomStatus.WAITING) {
             throw new RuntimeException("遊戲已開始，無法加入");
@@ -77,8 +84,9 @@ public class RoomService {
             throw new RuntimeException("房間已滿");
         }
 
-        // 檢查暱稱是否重複
-        boolean nicknameExists = playerRepository.findByRoomId(room.getId()).stream()
+        // 檢查暱稱是否重複（同一次查詢的結果也用於組裝返回的房間資訊）
+        List<Player> players = new ArrayList<>(playerRepository.findWithImagesByRoomId(room.getId()));
+        boolean nicknameExists = players.stream()
                 .anyMatch(p -> p.getNickname().equals(request.getNickname()));
         if (nicknameExists) {
             throw new RuntimeException("暱稱已被使用");
@@ -99,8 +107,10 @@ public class RoomService {
         // 更新房間玩家列表
         room.getPlayerIds().add(player.getId());
         room = roomRepository.save(room);
+        players.add(player);
 
-        RoomDTO roomDTO = convertToDTO(room, null);
+        RoomDTO roomDTO = buildRoomDTO(room, players, null);
+        roomDTO.setVersion(roomVersions.next(room.getId()));
         
         // 通過 WebSocket 廣播房間更新（通知其他玩家有新玩家加入）
         // 注意：這裡需要注入 SimpMessagingTemplate，但為了避免循環依賴，
@@ -110,30 +120,33 @@ public class RoomService {
     }
 
     @Transactional
-    public void playerReady(String playerId) {
+    public long playerReady(String playerId) {
         Player player = playerRepository.findById(playerId)
                 .orElseThrow(() -> new RuntimeException("玩家不存在"));
+        lockRoom(player.getRoomId());
         
         player.setIsReady(true);
         playerRepository.save(player);
+        return roomVersions.next(player.getRoomId());
     }
 
     @Transactional
-    public void playerCancelReady(String playerId) {
+    public long playerCancelReady(String playerId) {
         Player player = playerRepository.findById(playerId)
                 .orElseThrow(() -> new RuntimeException("玩家不存在"));
+        lockRoom(player.getRoomId());
         
         player.setIsReady(false);
         playerRepository.save(player);
+        return roomVersions.next(player.getRoomId());
     }
 
     @Transactional
-    public void updatePlayerNickname(String playerId, String newNickname) {
+    public long updatePlayerNickname(String playerId, String newNickname) {
         Player player = playerRepository.findById(playerId)
                 .orElseThrow(() -> new RuntimeException("玩家不存在"));
         
-        Room room = roomRepository.findById(player.getRoomId())
-                .orElseThrow(() -> new RuntimeException("房間不存在"));
+        Room room = lockRoom(player.getRoomId());
 
         if (room.getStatus() != Room.RoomStatus.WAITING) {
             throw new RuntimeException("遊戲已開始，無法修改暱稱");
@@ -148,10 +161,11 @@ public class RoomService {
 
         player.setNickname(newNickname);
         playerRepository.save(player);
+        return roomVersions.next(room.getId());
     }
 
     @Transactional
-    public void kickPlayer(String hostId, String targetPlayerId) {
+    public long kickPlayer(String hostId, String targetPlayerId) {
         Player host = playerRepository.findById(hostId)
                 .orElseThrow(() -> new RuntimeException("房主不存在"));
         
@@ -166,8 +180,7 @@ public class RoomService {
             throw new RuntimeException("玩家不在同一房間");
         }
 
-        Room room = roomRepository.findById(host.getRoomId())
-                .orElseThrow(() -> new RuntimeException("房間不存在"));
+        Room room = lockRoom(host.getRoomId());
 
         if (room.getStatus() != Room.RoomStatus.WAITING) {
             throw new RuntimeException("遊戲已開始，無法踢人");
@@ -177,6 +190,7 @@ public class RoomService {
         room.getPlayerIds().remove(targetPlayerId);
         roomRepository.save(room);
         playerRepository.delete(target);
+        return roomVersions.next(room.getId());
     }
 
     @Transactional
@@ -184,8 +198,7 @@ public class RoomService {
         Player player = playerRepository.findById(playerId)
                 .orElseThrow(() -> new RuntimeException("玩家不存在"));
 
-        Room room = roomRepository.findById(player.getRoomId())
-                .orElseThrow(() -> new RuntimeException("房間不存在"));
+        Room room = lockRoom(player.getRoomId());
 
         // 如果遊戲已開始，不允許退出（或可以實現斷線處理）
         if (room.getStatus() == Room.RoomStatus.PLAYING) {
@@ -246,19 +259,14 @@ public class RoomService {
             log.info("房間 {} 沒有玩家了，保留房間以供後續加入", room.getId());
         }
 
-        // 返回更新後的房間資訊（用於廣播）
-        String newHostId = room.getPlayerIds().isEmpty() ? null :
-                playerRepository.findByRoomId(room.getId()).stream()
-                        .filter(Player::getIsHost)
-                        .findFirst()
-                        .map(Player::getId)
-                        .orElse(null);
-        
-        return convertToDTO(room, newHostId);
+        // 返回更新後的房間資訊（用於廣播），房主由剩餘玩家的 isHost 決定
+        RoomDTO roomDTO = convertToDTO(room, null);
+        roomDTO.setVersion(roomVersions.next(room.getId()));
+        return roomDTO;
     }
 
     @Transactional
-    public void startGame(String hostId) {
+    public long startGame(String hostId) {
         Player host = playerRepository.findById(hostId)
                 .orElseThrow(() -> new RuntimeException("房主不存在"));
         
@@ -266,14 +274,13 @@ public class RoomService {
             throw new RuntimeException("只有房主可以開始遊戲");
         }
 
-        Room room = roomRepository.findById(host.getRoomId())
-                .orElseThrow(() -> new RuntimeException("房間不存在"));
+        Room room = lockRoom(host.getRoomId());
 
         if (room.getStatus() != Room.RoomStatus.WAITING) {
             throw new RuntimeException("遊戲已開始");
         }
 
-        List<Player> players = playerRepository.findByRoomId(room.getId());
+        List<Player> players = playerRepository.findWithImagesByRoomId(room.getId());
         
         if (players.size() < 2) {
             throw new RuntimeException("至少需要 2 人才能開始遊戲");
@@ -299,32 +306,85 @@ public class RoomService {
         room.setStatus(Room.RoomStatus.PLAYING);
         room.setStartedAt(java.time.LocalDateTime.now());
         roomRepository.save(room);
+        return roomVersions.next(room.getId());
     }
 
+    /**
+     * 讀取房間資訊，幾乎每次變更後都會呼叫
+     * 資料庫路徑固定兩條 SQL：房間本身，以及玩家連同圖片列表（房主從玩家列表中取得，不再另外查詢）。
+     * 版本號與資料在同一個鎖內讀取：遊戲中為房間狀態鎖，否則為房間資料列的共享鎖（變更在排他鎖內指派版本號）
+     */
+    @Transactional(readOnly = true)
     public RoomDTO getRoom(String roomId) {
-        Room room = roomRepository.findById(roomId)
+        // 遊戲中的房間以記憶體狀態為準（分數等變更可能尚未寫回資料庫）
+        RoomDTO live = gameStateEngine.inspect(roomId, state -> {
+            if (state == null) {
+                return null;
+            }
+            RoomDTO roomDTO = buildRoomDTO(state.getRoom(), new ArrayList<>(state.getPlayerList()), null);
+            roomDTO.setVersion(roomVersions.current(roomId));
+            return roomDTO;
+        });
+        if (live != null) {
+            return live;
+        }
+
+        Room room = roomRepository.findByIdForShare(roomId)
                 .orElseThrow(() -> new RuntimeException("房間不存在"));
-        
-        String hostId = playerRepository.findByRoomId(roomId).stream()
-                .filter(Player::getIsHost)
-                .map(Player::getId)
-                .findFirst()
-                .orElse(null);
-        
-        return convertToDTO(room, hostId);
+
+        RoomDTO roomDTO = convertToDTO(room, null);
+        roomDTO.setVersion(roomVersions.current(roomId));
+        return roomDTO;
     }
 
     public RoomDTO getRoomByCode(String roomCode) {
         Room room = roomRepository.findByRoomCode(roomCode)
                 .orElseThrow(() -> new RuntimeException("房間不存在"));
-        
-        String hostId = playerRepository.findByRoomId(room.getId()).stream()
-                .filter(Player::getIsHost)
-                .map(Player::getId)
-                .findFirst()
-                .orElse(null);
-        
-        return convertToDTO(room, hostId);
+        return getRoom(room.getId());
+    }
+
+    /**
+     * 遊戲中的房間增量更新：房間狀態、回合數與所有玩家的分數（回合開始與結束後廣播）
+     * 內容與版本號在同一個鎖內讀取與指派，版本號較大的更新內容一定較新
+     */
+    @Transactional
+    public RoomDeltaDTO getGameUpdate(String roomId) {
+        RoomDeltaDTO live = gameStateEngine.inspect(roomId, state -> {
+            if (state == null) {
+                return null;
+            }
+            RoomDeltaDTO delta = buildScoreUpdate(state.getRoom(), state.getPlayerList());
+            delta.setVersion(roomVersions.next(roomId));
+            return delta;
+        });
+        if (live != null) {
+            return live;
+        }
+
+        Room room = lockRoom(roomId);
+        RoomDeltaDTO delta = buildScoreUpdate(room, playerRepository.findByRoomId(roomId));
+        delta.setVersion(roomVersions.next(roomId));
+        return delta;
+    }
+
+    /**
+     * 鎖定房間資料列，變更房間或玩家的交易先取得此鎖，並在持有鎖時以 roomVersions.next 指派版本號
+     * 鎖持有到交易提交，版本號的順序與提交順序一致；交易在指派後回滾時版本號跳號，客戶端會重新取得快照
+     */
+    private Room lockRoom(String roomId) {
+        return roomRepository.findByIdForUpdate(roomId)
+                .orElseThrow(() -> new RuntimeException("房間不存在"));
+    }
+
+    private RoomDeltaDTO buildScoreUpdate(Room room, Collection<Player> players) {
+        return RoomDeltaDTO.builder()
+                .roomId(room.getId())
+                .status(room.getStatus())
+                .currentRound(room.getCurrentRound())
+                .players(players.stream()
+                        .map(p -> PlayerDeltaDTO.builder().id(p.getId()).score(p.getScore()).build())
+                        .collect(Collectors.toList()))
+                .build();
     }
 
     private String generateRoomCode() {
@@ -337,7 +397,10 @@ public class RoomService {
     }
 
     private RoomDTO convertToDTO(Room room, String hostId) {
-        List<Player> players = playerRepository.findByRoomId(room.getId());
+        return buildRoomDTO(room, playerRepository.findWithImagesByRoomId(room.getId()), hostId);
+    }
+
+    private RoomDTO buildRoomDTO(Room room, List<Player> players, String hostId) {
         List<PlayerDTO> playerDTOs = players.stream()
                 .map(this::convertPlayerToDTO)
                 .collect(Collectors.toList());
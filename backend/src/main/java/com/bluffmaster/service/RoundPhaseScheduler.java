@@ -0,0 +1,198 @@
+package com.bluffmaster.service;
+
+import com.bluffmaster.dto.GameRoundDTO;
+import com.bluffmaster.model.GameRound;
+import com.bluffmaster.state.RoomCommandExecutor;
+import com.bluffmaster.websocket.RoomBroadcaster;
+import com.bluffmaster.websocket.RoomUpdatePublisher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * 回合階段排程
+ * 所有房間共用一個排程執行緒池，由伺服器掌握投票截止時間：開始投票後 game.voting-timeout 秒自動公布結果，
+ * 公布結果後 game.reveal-duration 毫秒自動結束回合並計分，客戶端只負責顯示倒數；
+ * 階段轉換與廣播都經過這裡，客戶端或排程觸發的轉換只會廣播一次；
+ * 同一回合同時收到的重複轉換請求合併為一次執行，所有請求共用同一個結果
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RoundPhaseScheduler {
+
+    private final GameService gameService;
+    private final RoomService roomService;
+    private final RoomBroadcaster roomBroadcaster;
+    private final RoomUpdatePublisher roomUpdatePublisher;
+    private final RoomCommandExecutor roomCommandExecutor;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${game.voting-timeout}")
+    private int votingTimeout;
+
+    @Value("${game.reveal-duration:2000}")
+    private long revealDuration;
+
+    @Value("${game.phase-scheduler.pool-size:2}")
+    private int poolSize;
+
+    private ThreadPoolTaskScheduler scheduler;
+
+    // roundId -> 下一個自動轉換（每個回合同時只有一個）
+    private final Map<String, ScheduledFuture<?>> deadlines = new ConcurrentHashMap<>();
+
+    // roundId:目標階段 -> 執行中的轉換，重複請求等待同一個結果
+    private final Map<String, CompletableFuture<GameRoundDTO>> inFlight = new ConcurrentHashMap<>();
+
+    private Counter collapsedTransitions;
+
+    @PostConstruct
+    public void init() {
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("round-phase-");
+        // 取消的截止時間立即從佇列移除，避免大量提前結束的回合堆積在佇列中
+        scheduler.setRemoveOnCancelPolicy(true);
+        scheduler.initialize();
+
+        collapsedTransitions = Counter.builder("game.round.transition.collapsed")
+                .description("與執行中的轉換合併的重複階段轉換請求數")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+
+    /**
+     * 開始投票並排程自動公布結果
+     */
+    public GameRoundDTO startVoting(String roundId) {
+        return runOnce(roundId, GameRound.RoundPhase.VOTING, () -> {
+            GameRoundDTO round = gameService.startVoting(roundId);
+            roomBroadcaster.send("/topic/room/" + round.getRoomId() + "/round", round);
+            schedule(round.getRoomId(), roundId, Duration.ofSeconds(votingTimeout), () -> reveal(roundId));
+            return round;
+        });
+    }
+
+    /**
+     * 公布結果並排程自動結束回合
+     */
+    public GameRoundDTO reveal(String roundId) {
+        return runOnce(roundId, GameRound.RoundPhase.REVEALING, () -> {
+            GameRoundDTO round = gameService.revealResult(roundId);
+            // 只有這次呼叫完成轉換時才廣播（重複請求返回快取的投票結果，但不再廣播）
+            if (round.isTransitioned()) {
+                roomBroadcaster.send("/topic/room/" + round.getRoomId() + "/round", round);
+                schedule(round.getRoomId(), roundId, Duration.ofMillis(revealDuration), () -> finish(roundId));
+            }
+            return round;
+        });
+    }
+
+    /**
+     * 結束回合、計分並廣播結果
+     */
+    public GameRoundDTO finish(String roundId) {
+        return runOnce(roundId, GameRound.RoundPhase.FINISHED, () -> {
+            cancel(roundId);
+            // 計分在房間鎖內檢查 isFinished 後執行，跨節點的重複請求也只會計分一次
+            GameRoundDTO round = gameService.finishRound(roundId);
+            // 只有這次呼叫完成計分時才廣播，避免重複廣播
+            if (round.isTransitioned()) {
+                roomBroadcaster.send("/topic/room/" + round.getRoomId() + "/round-result", round);
+                roomUpdatePublisher.publish(roomService.getGameUpdate(round.getRoomId()));
+            }
+            return round;
+        });
+    }
+
+    /**
+     * 玩家斷線；主講者斷線時直接結束當前回合
+     */
+    public void playerDisconnected(String playerId) {
+        gameService.handlePlayerDisconnect(playerId).ifPresent(this::finish);
+    }
+
+    /**
+     * 同一回合同一目標階段的轉換同時只執行一次，執行期間到達的請求直接等待並共用結果（包括異常）
+     */
+    private GameRoundDTO runOnce(String roundId, GameRound.RoundPhase target, Supplier<GameRoundDTO> transition) {
+        String key = roundId + ":" + target;
+        CompletableFuture<GameRoundDTO> own = new CompletableFuture<>();
+        CompletableFuture<GameRoundDTO> running = inFlight.putIfAbsent(key, own);
+        if (running != null) {
+            collapsedTransitions.increment();
+            log.debug("回合 {} 的 {} 轉換正在執行，合併重複請求", roundId, target);
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+
+        try {
+            GameRoundDTO round = transition.get();
+            own.complete(round);
+            return round;
+        } catch (RuntimeException e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    /**
+     * 到期時把轉換放進房間的信箱，與客戶端指令依序執行（排程執行緒本身不執行轉換）
+     */
+    private void schedule(String roomId, String roundId, Duration delay, Runnable transition) {
+        // 任務只移除自己的排程，不會誤刪到期期間重新排入的下一個轉換
+        AtomicReference<ScheduledFuture<?>> self = new AtomicReference<>();
+        ScheduledFuture<?> future = scheduler.schedule(() -> {
+            deadlines.remove(roundId, self.get());
+            roomCommandExecutor.submit(roomId, () -> {
+                try {
+                    transition.run();
+                } catch (Exception e) {
+                    // 回合已被客戶端或斷線處理提前轉換
+                    log.debug("回合 {} 自動轉換略過: {}", roundId, e.getMessage());
+                }
+            });
+        }, Instant.now().plus(delay));
+        self.set(future);
+        ScheduledFuture<?> previous = deadlines.put(roundId, future);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+    }
+
+    private void cancel(String roundId) {
+        ScheduledFuture<?> future = deadlines.remove(roundId);
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+}
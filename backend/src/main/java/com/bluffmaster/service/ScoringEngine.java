@@ -0,0 +1,94 @@
+package com.bluffmaster.service;
+
+import com.bluffmaster.dto.VoteResult;
+import com.bluffmaster.model.GameRound;
+import com.bluffmaster.model.Player;
+import com.bluffmaster.model.Room;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 回合計分
+ * 一次遍歷玩家，同時產生每個投票者的結果與以圖片索引計數的投票統計，再依統計計算主講者得分；
+ * 計分規則依房間的遊戲模式選用
+ */
+@Component
+@RequiredArgsConstructor
+public class ScoringEngine {
+
+    private final List<ScoringRule> rules;
+
+    /**
+     * 計算回合所有玩家的投票結果（playerId -> 結果），不修改玩家分數
+     */
+    public Map<String, VoteResult> score(Room room, GameRound round, Collection<Player> players) {
+        ScoringRule rule = ruleFor(room.getGameMode());
+
+        // 使用主講者選擇的說謊圖片作為正確答案
+        String correctImage = round.getSpeakerFakeImageUrl() != null
+                ? round.getSpeakerFakeImageUrl()
+                : round.getFakeImageUrl();
+        List<String> images = round.getImageUrls();
+        int correctIndex = images.indexOf(correctImage);
+        int[] votesPerImage = new int[images.size()];
+        int eligibleVoters = 0;
+        int actualVoters = 0;
+
+        Map<String, VoteResult> results = new HashMap<>();
+        Player speaker = null;
+        for (Player player : players) {
+            if (player.getId().equals(round.getSpeakerId())) {
+                speaker = player;
+                continue;
+            }
+
+            eligibleVoters++;
+            String votedImage = round.getVotes().get(player.getId());
+            boolean correct = false;
+            if (votedImage != null) {
+                actualVoters++;
+                int index = images.indexOf(votedImage);
+                if (index >= 0) {
+                    votesPerImage[index]++;
+                    correct = index == correctIndex;
+                }
+            }
+
+            results.put(player.getId(), VoteResult.builder()
+                    .playerId(player.getId())
+                    .playerNickname(player.getNickname())
+                    .votedImageUrl(votedImage)
+                    .isCorrect(correct)
+                    .scoreChange(rule.voterScore(votedImage != null, correct))
+                    .isSpeaker(false)
+                    .build());
+        }
+
+        if (speaker == null) {
+            throw new RuntimeException("主講者不存在");
+        }
+
+        VoteTally tally = new VoteTally(votesPerImage, correctIndex, eligibleVoters, actualVoters);
+        results.put(speaker.getId(), VoteResult.builder()
+                .playerId(speaker.getId())
+                .playerNickname(speaker.getNickname())
+                .votedImageUrl(round.getSpeakerFakeImageUrl())
+                .isCorrect(true)  // 主講者選擇的圖片就是正確答案
+                .scoreChange(rule.speakerScore(tally))
+                .isSpeaker(true)
+                .build());
+        return results;
+    }
+
+    private ScoringRule ruleFor(Room.GameMode gameMode) {
+        return rules.stream()
+                .filter(rule -> rule.supports(gameMode))
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException("不支援的遊戲模式: " + gameMode));
+    }
+}
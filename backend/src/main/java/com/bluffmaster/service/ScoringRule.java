@@ -0,0 +1,24 @@
+package com.bluffmaster.service;
+
+import com.bluffmaster.model.Room;
+
+/**
+ * 計分規則，新的遊戲模式可以提供自己的規則（Spring bean），由 ScoringEngine 依遊戲模式選用
+ */
+public interface ScoringRule {
+
+    /**
+     * 是否適用於該遊戲模式
+     */
+    boolean supports(Room.GameMode gameMode);
+
+    /**
+     * 非主講者玩家的得分變化
+     */
+    int voterScore(boolean voted, boolean correct);
+
+    /**
+     * 主講者的得分變化
+     */
+    int speakerScore(VoteTally tally);
+}
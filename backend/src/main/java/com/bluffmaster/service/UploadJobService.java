@@ -0,0 +1,228 @@
+package com.bluffmaster.service;
+
+import com.bluffmaster.dto.UploadJobDTO;
+import com.bluffmaster.model.Player;
+import com.bluffmaster.state.UploadJobStore;
+import com.bluffmaster.websocket.RoomBroadcaster;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * 非同步圖片上傳
+ * 請求只負責檢查並接收文件，把任務放進有界的任務佇列後立即返回任務 ID；任務執行緒把圖片交給圖片處理執行緒池壓縮，
+ * 每張圖片完成時及最終結果都廣播到 /topic/room/{roomId}/upload。
+ * 請求執行緒永遠不會自己壓縮圖片：任務佇列滿時直接以 FAILED 拒絕，由客戶端稍後重試。
+ * 每次進度變更都保存到 UploadJobStore，多節點模式下狀態查詢落在其他節點也能取得
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UploadJobService {
+
+    private final ImageService imageService;
+    private final RoomBroadcaster roomBroadcaster;
+    private final MeterRegistry meterRegistry;
+    private final UploadJobStore jobStore;
+
+    @Value("${game.image-processing.job-workers:4}")
+    private int jobWorkers;
+
+    @Value("${game.image-processing.job-queue-capacity:50}")
+    private int jobQueueCapacity;
+
+    private ThreadPoolTaskExecutor jobExecutor;
+    private Counter rejectedJobs;
+
+    @PostConstruct
+    public void init() {
+        // 預設的 AbortPolicy：佇列滿時拋出 TaskRejectedException，不在請求執行緒上執行
+        jobExecutor = new ThreadPoolTaskExecutor();
+        jobExecutor.setCorePoolSize(jobWorkers);
+        jobExecutor.setMaxPoolSize(jobWorkers);
+        jobExecutor.setQueueCapacity(jobQueueCapacity);
+        jobExecutor.setThreadNamePrefix("upload-job-");
+        jobExecutor.initialize();
+
+        Gauge.builder("game.upload.jobs.queued", jobExecutor, ThreadPoolTaskExecutor::getQueueSize)
+                .description("等待執行的上傳任務數")
+                .register(meterRegistry);
+        rejectedJobs = Counter.builder("game.upload.jobs.rejected")
+                .description("任務佇列已滿而被拒絕的上傳任務數")
+                .register(meterRegistry);
+        log.info("上傳任務執行緒數: {}, 佇列容量: {}", jobWorkers, jobQueueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdown();
+    }
+
+    public UploadJobDTO submit(String playerId, List<MultipartFile> files) throws IOException {
+        List<ImageUpload> uploads = files.stream().map(ImageUpload::of).toList();
+        Player player = imageService.checkUploadAllowed(playerId, uploads);
+
+        // multipart 的暫存檔在請求結束後會被刪除，先移到任務自己的暫存檔（同一磁碟上只是改名）
+        List<Path> tempFiles = new ArrayList<>();
+        List<ImageUpload> spooled = new ArrayList<>();
+        try {
+            for (MultipartFile file : files) {
+                Path tempFile = Files.createTempFile("upload-", ".part");
+                tempFiles.add(tempFile);
+                file.transferTo(tempFile);
+                spooled.add(new ImageUpload(file.getOriginalFilename(), file.getContentType(),
+                        file.getSize(), new FileSystemResource(tempFile), true));
+            }
+        } catch (IOException | RuntimeException e) {
+            deleteTempFiles(tempFiles);
+            throw e;
+        }
+
+        UploadJob job = new UploadJob(UUID.randomUUID().toString(), playerId, player.getRoomId(), files.size());
+        record(job, job::toDTO);
+        log.info("建立上傳任務: jobId={}, playerId={}, 文件數量: {}", job.jobId, playerId, files.size());
+
+        try {
+            jobExecutor.execute(() -> run(job, spooled, tempFiles));
+        } catch (TaskRejectedException e) {
+            deleteTempFiles(tempFiles);
+            rejectedJobs.increment();
+            log.warn("上傳任務佇列已滿，拒絕任務: jobId={}", job.jobId);
+            return record(job, () -> job.fail("上傳人數過多，請稍後重試"));
+        }
+
+        return job.toDTO();
+    }
+
+    /**
+     * 在任務執行緒上壓縮並等待全部圖片完成（圖片處理佇列滿時由任務執行緒自行處理）
+     */
+    private void run(UploadJob job, List<ImageUpload> spooled, List<Path> tempFiles) {
+        try {
+            List<String> stored = imageService.processUploads(spooled, (index, url) -> publish(record(job, () -> job.stored(index, url))))
+                    .join();
+            List<String> urls = imageService.attachImages(job.playerId, stored);
+            log.info("上傳任務完成: jobId={}", job.jobId);
+            publish(record(job, () -> job.complete(urls)));
+        } catch (RuntimeException e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            log.warn("上傳任務失敗: jobId={}, 原因: {}", job.jobId, cause.getMessage());
+            publish(record(job, () -> job.fail(cause.getMessage())));
+        } finally {
+            deleteTempFiles(tempFiles);
+        }
+    }
+
+    public Optional<UploadJobDTO> getJob(String jobId) {
+        return jobStore.find(jobId);
+    }
+
+    /**
+     * 變更任務進度並保存快照；在任務物件上同步，並發完成的圖片不會以較舊的快照覆蓋較新的快照
+     * 保存失敗只記錄日誌，客戶端仍可經由廣播取得進度
+     */
+    private UploadJobDTO record(UploadJob job, Supplier<UploadJobDTO> change) {
+        synchronized (job) {
+            UploadJobDTO snapshot = change.get();
+            try {
+                jobStore.save(snapshot);
+            } catch (RuntimeException e) {
+                log.warn("保存上傳任務狀態失敗: jobId={}", job.jobId, e);
+            }
+            return snapshot;
+        }
+    }
+
+    private void publish(UploadJobDTO job) {
+        try {
+            roomBroadcaster.send("/topic/room/" + job.getRoomId() + "/upload", job);
+        } catch (Exception e) {
+            // 廣播失敗不影響上傳結果，客戶端仍可查詢任務狀態
+            log.warn("廣播上傳進度失敗: jobId={}", job.getJobId(), e);
+        }
+    }
+
+    private void deleteTempFiles(List<Path> tempFiles) {
+        for (Path tempFile : tempFiles) {
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException e) {
+                log.warn("刪除上傳暫存檔失敗: {}", tempFile, e);
+            }
+        }
+    }
+
+    /**
+     * 任務進度（各方法在任務物件上同步，保證廣播的快照一致）
+     */
+    private static class UploadJob {
+        private final String jobId;
+        private final String playerId;
+        private final String roomId;
+        private final int totalFiles;
+        private final Map<Integer, String> storedUrls = new TreeMap<>();
+        private UploadJobDTO.JobStatus status = UploadJobDTO.JobStatus.PROCESSING;
+        private List<String> imageUrls;
+        private String error;
+
+        UploadJob(String jobId, String playerId, String roomId, int totalFiles) {
+            this.jobId = jobId;
+            this.playerId = playerId;
+            this.roomId = roomId;
+            this.totalFiles = totalFiles;
+        }
+
+        synchronized UploadJobDTO stored(int index, String url) {
+            storedUrls.put(index, url);
+            return toDTO();
+        }
+
+        synchronized UploadJobDTO complete(List<String> urls) {
+            status = UploadJobDTO.JobStatus.COMPLETED;
+            imageUrls = List.copyOf(urls);
+            return toDTO();
+        }
+
+        synchronized UploadJobDTO fail(String message) {
+            status = UploadJobDTO.JobStatus.FAILED;
+            imageUrls = List.of();
+            error = message;
+            return toDTO();
+        }
+
+        synchronized UploadJobDTO toDTO() {
+            return UploadJobDTO.builder()
+                    .jobId(jobId)
+                    .playerId(playerId)
+                    .roomId(roomId)
+                    .status(status)
+                    .totalFiles(totalFiles)
+                    .completedFiles(status == UploadJobDTO.JobStatus.COMPLETED ? totalFiles : storedUrls.size())
+                    .imageUrls(imageUrls != null ? imageUrls : new ArrayList<>(storedUrls.values()))
+                    .error(error)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.bluffmaster.service;
+
+/**
+ * 一個回合的投票統計（不含主講者）
+ * votesPerImage 以回合圖片的索引計數；correctIndex 為正確答案在回合圖片中的索引，不在回合圖片中時為 -1
+ */
+public record VoteTally(int[] votesPerImage, int correctIndex, int eligibleVoters, int actualVoters) {
+
+    /**
+     * 投中正確答案的人數
+     */
+    public int correctVotes() {
+        return correctIndex >= 0 ? votesPerImage[correctIndex] : 0;
+    }
+
+    /**
+     * 未投票的人數
+     */
+    public int missingVotes() {
+        return eligibleVoters - actualVoters;
+    }
+}
@@ -0,0 +1,51 @@
+package com.bluffmaster.state;
+
+import com.bluffmaster.model.GameRound;
+import com.bluffmaster.model.Player;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 投票階段的選票規則（開始投票時從房間狀態取得，之後不會改變）
+ * 投票緩衝區用它在房間鎖外驗證選票：主講者只能選自己的圖片，其他玩家只能選回合中的圖片
+ */
+public record Ballot(String roundId,
+                     String roomId,
+                     String speakerId,
+                     Set<String> speakerOptions,
+                     Set<String> options,
+                     Set<String> voterIds) {
+
+    /**
+     * 以房間狀態的當前回合建立選票規則，只能在命令內調用
+     */
+    public static Ballot of(RoomState state) {
+        GameRound round = state.getCurrentRound();
+        Player speaker = state.getPlayer(round.getSpeakerId());
+        Set<String> voterIds = new HashSet<>();
+        for (Player player : state.getPlayerList()) {
+            voterIds.add(player.getId());
+        }
+        return new Ballot(
+                round.getId(),
+                state.getRoomId(),
+                round.getSpeakerId(),
+                speaker != null && speaker.getImageUrls() != null ? Set.copyOf(speaker.getImageUrls()) : Set.of(),
+                Set.copyOf(round.getImageUrls()),
+                Set.copyOf(voterIds));
+    }
+
+    /**
+     * 驗證選票，不合法時拋出異常
+     */
+    public void validate(String playerId, String imageUrl) {
+        if (!voterIds.contains(playerId)) {
+            throw new RuntimeException("玩家不在該房間");
+        }
+        Set<String> allowed = speakerId.equals(playerId) ? speakerOptions : options;
+        if (!allowed.contains(imageUrl)) {
+            throw new RuntimeException("無效的圖片選項");
+        }
+    }
+}
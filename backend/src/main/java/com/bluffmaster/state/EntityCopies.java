@@ -0,0 +1,67 @@
+package com.bluffmaster.state;
+
+import com.bluffmaster.model.GameRound;
+import com.bluffmaster.model.Player;
+import com.bluffmaster.model.Room;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * 實體的脫離（detached）副本，集合欄位改為一般的 ArrayList/HashMap，
+ * 避免在交易外觸發懶加載，也避免寫回資料庫時與遊戲執行緒共用同一個物件
+ */
+final class EntityCopies {
+
+    private EntityCopies() {
+    }
+
+    static Room copy(Room room) {
+        return Room.builder()
+                .id(room.getId())
+                .roomCode(room.getRoomCode())
+                .maxPlayers(room.getMaxPlayers())
+                .gameMode(room.getGameMode())
+                .status(room.getStatus())
+                .playerIds(room.getPlayerIds() != null ? new ArrayList<>(room.getPlayerIds()) : new ArrayList<>())
+                .currentRound(room.getCurrentRound())
+                .totalRounds(room.getTotalRounds())
+                .createdAt(room.getCreatedAt())
+                .updatedAt(room.getUpdatedAt())
+                .startedAt(room.getStartedAt())
+                .build();
+    }
+
+    static Player copy(Player player) {
+        return Player.builder()
+                .id(player.getId())
+                .nickname(player.getNickname())
+                .roomId(player.getRoomId())
+                .isHost(player.getIsHost())
+                .isReady(player.getIsReady())
+                .score(player.getScore())
+                .imageUrls(player.getImageUrls() != null ? new ArrayList<>(player.getImageUrls()) : new ArrayList<>())
+                .isOnline(player.getIsOnline())
+                .createdAt(player.getCreatedAt())
+                .updatedAt(player.getUpdatedAt())
+                .build();
+    }
+
+    static GameRound copy(GameRound round) {
+        return GameRound.builder()
+                .id(round.getId())
+                .roomId(round.getRoomId())
+                .roundNumber(round.getRoundNumber())
+                .speakerId(round.getSpeakerId())
+                .imageUrls(round.getImageUrls() != null ? new ArrayList<>(round.getImageUrls()) : new ArrayList<>())
+                .fakeImageUrl(round.getFakeImageUrl())
+                .speakerFakeImageUrl(round.getSpeakerFakeImageUrl())
+                .phase(round.getPhase())
+                .votes(round.getVotes() != null ? new HashMap<>(round.getVotes()) : new HashMap<>())
+                .votingEndsAt(round.getVotingEndsAt())
+                .isFinished(round.getIsFinished())
+                .createdAt(round.getCreatedAt())
+                .finishedAt(round.getFinishedAt())
+                .build();
+    }
+}
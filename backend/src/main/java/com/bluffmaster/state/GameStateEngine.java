@@ -0,0 +1,254 @@
+package com.bluffmaster.state;
+
+import com.bluffmaster.model.GameRound;
+import com.bluffmaster.model.Player;
+import com.bluffmaster.model.Room;
+import com.bluffmaster.repository.GameRoundRepository;
+import com.bluffmaster.repository.PlayerRepository;
+import com.bluffmaster.repository.RoomRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 遊戲中房間的權威狀態引擎
+ * 房間進入 PLAYING 後，房間、玩家與當前回合都保存在 RoomStateStore 中，熱路徑的讀寫不再經過資料庫，
+ * 變更由排程批次寫回 MySQL；遊戲結束並寫回完成後才從狀態儲存中移除
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GameStateEngine {
+
+    private final RoomRepository roomRepository;
+    private final PlayerRepository playerRepository;
+    private final GameRoundRepository gameRoundRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final RoomStateStore roomStateStore;
+
+    // 回合與玩家所屬的房間不會改變，可以安全地在各節點本地快取
+    private final Map<String, String> roundIndex = new ConcurrentHashMap<>();   // roundId -> roomId
+    private final Map<String, String> playerIndex = new ConcurrentHashMap<>();  // playerId -> roomId
+
+    @Value("${game.state.flush-batch-size:50}")
+    private int flushBatchSize;
+
+    /**
+     * 在遊戲中房間的狀態上執行命令，同一房間的命令互斥執行
+     * 狀態不存在時從資料庫載入；房間不存在或不在遊戲中時命令收到 null
+     */
+    public <T> T execute(String roomId, Function<RoomState, T> command) {
+        return roomStateStore.execute(roomId, () -> loadFromDatabase(roomId), command);
+    }
+
+    /**
+     * 在回合所屬房間的狀態上執行命令；回合不是該房間的當前回合時命令收到 null
+     */
+    public <T> T executeOnRound(String roundId, Function<RoomState, T> command) {
+        String roomId = findRoomIdOfRound(roundId);
+        if (roomId == null) {
+            return command.apply(null);
+        }
+        return execute(roomId, state -> command.apply(state != null && state.hasRound(roundId) ? state : null));
+    }
+
+    /**
+     * 回合所屬的房間 ID，回合不存在時返回 null
+     */
+    public String findRoomIdOfRound(String roundId) {
+        String roomId = roundIndex.get(roundId);
+        if (roomId == null) {
+            roomId = gameRoundRepository.findById(roundId)
+                    .map(GameRound::getRoomId)
+                    .orElse(null);
+            if (roomId != null) {
+                roundIndex.put(roundId, roomId);
+            }
+        }
+        return roomId;
+    }
+
+    /**
+     * 在玩家所在房間的狀態上執行命令；玩家不在遊戲中的房間時命令收到 null
+     */
+    public <T> T executeOnPlayer(String playerId, Function<RoomState, T> command) {
+        String roomId = playerIndex.get(playerId);
+        if (roomId == null) {
+            roomId = playerRepository.findById(playerId)
+                    .map(Player::getRoomId)
+                    .orElse(null);
+            if (roomId == null) {
+                return command.apply(null);
+            }
+        }
+        return execute(roomId, state -> command.apply(state != null && state.getPlayer(playerId) != null ? state : null));
+    }
+
+    /**
+     * 讀取已載入的房間狀態（不查詢資料庫），未載入時 reader 收到 null
+     */
+    public <T> T read(String roomId, Function<RoomState, T> reader) {
+        return roomStateStore.read(roomId, reader);
+    }
+
+    /**
+     * 在房間鎖內讀取已載入的房間狀態（不查詢資料庫），與命令互斥；未載入時 reader 收到 null
+     */
+    public <T> T inspect(String roomId, Function<RoomState, T> reader) {
+        return roomStateStore.execute(roomId, () -> null, reader);
+    }
+
+    /**
+     * 設置房間的新回合（回合必須已寫入資料庫並取得 ID），只能在命令內調用
+     */
+    public void attachRound(RoomState state, GameRound round) {
+        GameRound previous = state.getCurrentRound();
+        state.setCurrentRound(EntityCopies.copy(round));
+        if (previous != null) {
+            roundIndex.remove(previous.getId());
+        }
+        roundIndex.put(round.getId(), state.getRoomId());
+    }
+
+    /**
+     * 從資料庫讀取回合的脫離副本（已初始化集合），用於已不在記憶體中的歷史回合
+     */
+    public Optional<GameRound> findRoundSnapshot(String roundId) {
+        return Optional.ofNullable(transactionTemplate.execute(status ->
+                gameRoundRepository.findById(roundId)
+                        .map(EntityCopies::copy)
+                        .orElse(null)));
+    }
+
+    /**
+     * 丟棄房間的狀態（不寫回資料庫），用於清理已過期的房間
+     */
+    public void discard(String roomId) {
+        roomStateStore.execute(roomId, () -> null, state -> {
+            if (state != null) {
+                evict(state);
+                log.info("房間 {} 已過期，狀態已丟棄", roomId);
+            }
+            return null;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${game.state.flush-interval:500}")
+    public void flush() {
+        List<String> roomIds = new ArrayList<>(roomStateStore.flushCandidates());
+        for (int from = 0; from < roomIds.size(); from += flushBatchSize) {
+            flushBatch(roomIds.subList(from, Math.min(from + flushBatchSize, roomIds.size())));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        log.info("應用程式關閉，寫回所有遊戲狀態");
+        flush();
+    }
+
+    private void flushBatch(List<String> roomIds) {
+        List<String> flushedRoomIds = new ArrayList<>();
+        List<RoomState.Snapshot> snapshots = new ArrayList<>();
+        for (String roomId : roomIds) {
+            RoomState.Snapshot snapshot = roomStateStore.execute(roomId, () -> null,
+                    state -> state != null ? state.drainDirty() : null);
+            if (snapshot != null && !snapshot.isEmpty()) {
+                flushedRoomIds.add(roomId);
+                snapshots.add(snapshot);
+            }
+        }
+
+        if (!snapshots.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> snapshots.forEach(this::write));
+                log.debug("已寫回 {} 個房間的遊戲狀態", snapshots.size());
+            } catch (Exception e) {
+                log.error("寫回遊戲狀態失敗，將在下次排程重試", e);
+                for (int i = 0; i < flushedRoomIds.size(); i++) {
+                    RoomState.Snapshot snapshot = snapshots.get(i);
+                    roomStateStore.execute(flushedRoomIds.get(i), () -> null, state -> {
+                        if (state != null) {
+                            state.restoreDirty(snapshot);
+                        }
+                        return null;
+                    });
+                }
+                return;
+            }
+        }
+
+        for (String roomId : roomIds) {
+            roomStateStore.execute(roomId, () -> null, state -> {
+                if (state != null && state.isGameFinished() && !state.isDirty()) {
+                    evict(state);
+                    log.info("房間 {} 遊戲已結束，狀態已寫回並移除", roomId);
+                }
+                return null;
+            });
+        }
+    }
+
+    private void write(RoomState.Snapshot snapshot) {
+        LocalDateTime now = LocalDateTime.now();
+        if (snapshot.room() != null) {
+            Room room = snapshot.room();
+            roomRepository.updateGameState(room.getId(), room.getStatus(), room.getCurrentRound(), now);
+        }
+        for (Player player : snapshot.players()) {
+            playerRepository.updateGameState(player.getId(), player.getScore(), player.getIsOnline(), now);
+        }
+        for (GameRound round : snapshot.rounds()) {
+            gameRoundRepository.save(round);
+        }
+    }
+
+    private RoomState loadFromDatabase(String roomId) {
+        RoomState state = transactionTemplate.execute(status -> {
+            Room room = roomRepository.findById(roomId).orElse(null);
+            if (room == null || room.getStatus() != Room.RoomStatus.PLAYING) {
+                return null;
+            }
+            List<Player> players = playerRepository.findWithImagesByRoomId(roomId).stream()
+                    .map(EntityCopies::copy)
+                    .toList();
+            GameRound round = gameRoundRepository.findByRoomIdAndIsFinishedFalse(roomId)
+                    .map(EntityCopies::copy)
+                    .orElse(null);
+            return new RoomState(EntityCopies.copy(room), players, round);
+        });
+
+        if (state != null) {
+            for (Player player : state.getPlayerList()) {
+                playerIndex.put(player.getId(), roomId);
+            }
+            if (state.getCurrentRound() != null) {
+                roundIndex.put(state.getCurrentRound().getId(), roomId);
+            }
+            log.info("房間 {} 狀態已載入，玩家數: {}", roomId, state.getPlayerList().size());
+        }
+        return state;
+    }
+
+    private void evict(RoomState state) {
+        roomStateStore.remove(state.getRoomId());
+        for (Player player : state.getPlayerList()) {
+            playerIndex.remove(player.getId(), state.getRoomId());
+        }
+        if (state.getCurrentRound() != null) {
+            roundIndex.remove(state.getCurrentRound().getId(), state.getRoomId());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.bluffmaster.state;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 單機模式：房間狀態保存在本 JVM 的記憶體中，以 synchronized (state) 保證同一房間的命令互斥
+ */
+@Component
+@ConditionalOnProperty(name = "game.state.store", havingValue = "local", matchIfMissing = true)
+public class LocalRoomStateStore implements RoomStateStore {
+
+    private final Map<String, RoomState> rooms = new ConcurrentHashMap<>();
+
+    @Override
+    public <T> T execute(String roomId, Supplier<RoomState> loader, Function<RoomState, T> command) {
+        RoomState state = rooms.get(roomId);
+        if (state == null) {
+            RoomState loaded = loader.get();
+            if (loaded != null) {
+                RoomState existing = rooms.putIfAbsent(roomId, loaded);
+                state = existing != null ? existing : loaded;
+            }
+        }
+
+        if (state == null) {
+            return command.apply(null);
+        }
+        synchronized (state) {
+            // 狀態可能已被其他執行緒移除（遊戲結束），此時視為不在遊戲中
+            return command.apply(rooms.get(roomId) == state ? state : null);
+        }
+    }
+
+    @Override
+    public <T> T read(String roomId, Function<RoomState, T> reader) {
+        RoomState state = rooms.get(roomId);
+        if (state == null) {
+            return reader.apply(null);
+        }
+        synchronized (state) {
+            return reader.apply(state);
+        }
+    }
+
+    @Override
+    public Collection<String> flushCandidates() {
+        return List.copyOf(rooms.keySet());
+    }
+
+    @Override
+    public void remove(String roomId) {
+        rooms.remove(roomId);
+    }
+}
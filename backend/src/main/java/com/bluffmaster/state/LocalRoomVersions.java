@@ -0,0 +1,37 @@
+package com.bluffmaster.state;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 單機模式：版本號保存在本機記憶體
+ */
+@Component
+@ConditionalOnProperty(name = "game.state.store", havingValue = "local", matchIfMissing = true)
+public class LocalRoomVersions implements RoomVersions {
+
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    @Override
+    public long next(String roomId) {
+        return counter(roomId).incrementAndGet();
+    }
+
+    @Override
+    public long current(String roomId) {
+        return counter(roomId).get();
+    }
+
+    @Override
+    public void remove(String roomId) {
+        versions.remove(roomId);
+    }
+
+    private AtomicLong counter(String roomId) {
+        return versions.computeIfAbsent(roomId, id -> new AtomicLong(System.currentTimeMillis()));
+    }
+}
@@ -0,0 +1,44 @@
+package com.bluffmaster.state;
+
+import com.bluffmaster.dto.UploadJobDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 單機模式：任務狀態保存在本機記憶體（ConcurrentHashMap），定期移除已過保留時間的任務
+ */
+@Component
+@ConditionalOnProperty(name = "game.state.store", havingValue = "local", matchIfMissing = true)
+public class LocalUploadJobStore implements UploadJobStore {
+
+    private final Map<String, Entry> jobs = new ConcurrentHashMap<>();
+
+    @Value("${game.image-processing.job-retention:600000}")
+    private long jobRetention;
+
+    @Override
+    public void save(UploadJobDTO job) {
+        long finishedAt = job.getStatus() == UploadJobDTO.JobStatus.PROCESSING ? Long.MAX_VALUE : System.currentTimeMillis();
+        jobs.put(job.getJobId(), new Entry(job, finishedAt));
+    }
+
+    @Override
+    public Optional<UploadJobDTO> find(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(Entry::job);
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void removeFinishedJobs() {
+        long expiredBefore = System.currentTimeMillis() - jobRetention;
+        jobs.values().removeIf(entry -> entry.finishedAt() < expiredBefore);
+    }
+
+    private record Entry(UploadJobDTO job, long finishedAt) {
+    }
+}
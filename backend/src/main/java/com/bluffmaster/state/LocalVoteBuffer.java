@@ -0,0 +1,84 @@
+package com.bluffmaster.state;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 單機模式：投票表保存在本機記憶體（ConcurrentHashMap）
+ * 投票只取得讀鎖，彼此不會阻塞；關閉時取得寫鎖，確保已確認的選票都包含在關閉結果中
+ */
+@Component
+@ConditionalOnProperty(name = "game.state.store", havingValue = "local", matchIfMissing = true)
+public class LocalVoteBuffer implements VoteBuffer {
+
+    private final Map<String, BallotBox> boxes = new ConcurrentHashMap<>();
+
+    @Override
+    public void open(Ballot ballot) {
+        boxes.putIfAbsent(ballot.roundId(), new BallotBox(ballot));
+    }
+
+    @Override
+    public boolean offer(String roundId, String playerId, String imageUrl) {
+        BallotBox box = boxes.get(roundId);
+        if (box == null) {
+            return false;
+        }
+        box.ballot.validate(playerId, imageUrl);
+
+        box.lock.readLock().lock();
+        try {
+            if (box.closed) {
+                return false;
+            }
+            box.votes.put(playerId, imageUrl);
+            return true;
+        } finally {
+            box.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Map<String, String> peek(String roundId) {
+        BallotBox box = boxes.get(roundId);
+        return box != null ? Map.copyOf(box.votes) : Map.of();
+    }
+
+    @Override
+    public Map<String, String> close(String roundId) {
+        BallotBox box = boxes.remove(roundId);
+        if (box == null) {
+            return Map.of();
+        }
+        box.lock.writeLock().lock();
+        try {
+            box.closed = true;
+            return Map.copyOf(box.votes);
+        } finally {
+            box.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Collection<String> openRoundIds() {
+        return List.copyOf(boxes.keySet());
+    }
+
+    private static final class BallotBox {
+        private final Ballot ballot;
+        private final Map<String, String> votes = new ConcurrentHashMap<>();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private boolean closed;
+
+        private BallotBox(Ballot ballot) {
+            this.ballot = ballot;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.bluffmaster.state;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 多節點模式：房間狀態以 JSON 保存在 Redis，同一房間的命令以 Redis 鎖（SET NX PX）跨節點互斥
+ * 每個命令都從 Redis 讀取最新狀態，修改後寫回，因此任何節點都可以處理任一房間的命令
+ */
+@Component
+@ConditionalOnProperty(name = "game.state.store", havingValue = "redis")
+@Slf4j
+public class RedisRoomStateStore implements RoomStateStore {
+
+    private static final String STATE_KEY_PREFIX = "bluffmaster:room-state:";
+    private static final String LOCK_KEY_PREFIX = "bluffmaster:room-lock:";
+    private static final String DIRTY_SET_KEY = "bluffmaster:room-state:dirty";
+
+    // 只有持有者才能釋放鎖，避免鎖過期後誤刪其他節點的鎖
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper stateMapper;
+
+    // 命令執行期間是否已移除狀態（移除後不再寫回）
+    private final ThreadLocal<Boolean> removedFlag = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    @Value("${game.state.redis.lock-timeout:5000}")
+    private long lockTimeoutMillis;
+
+    @Value("${game.state.redis.lock-wait:3000}")
+    private long lockWaitMillis;
+
+    @Value("${game.room-timeout}")
+    private long roomTimeoutSeconds;
+
+    public RedisRoomStateStore(StringRedisTemplate redisTemplate, ObjectMapper objectMapper) {
+        this.redisTemplate = redisTemplate;
+        // 直接序列化欄位，不經過 getter（RoomState 的 getter 包含衍生屬性）
+        this.stateMapper = objectMapper.copy()
+                .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+                .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+    }
+
+    @Override
+    public <T> T execute(String roomId, Supplier<RoomState> loader, Function<RoomState, T> command) {
+        String token = lock(roomId);
+        try {
+            RoomState state = get(roomId);
+            boolean created = false;
+            if (state == null) {
+                state = loader.get();
+                created = state != null;
+            }
+
+            long modCount = state != null ? state.getModCount() : 0;
+            T result = command.apply(state);
+
+            if (state != null && !removedFlag.get() && (created || state.getModCount() != modCount)) {
+                put(state);
+            }
+            return result;
+        } finally {
+            removedFlag.remove();
+            unlock(roomId, token);
+        }
+    }
+
+    @Override
+    public <T> T read(String roomId, Function<RoomState, T> reader) {
+        return reader.apply(get(roomId));
+    }
+
+    @Override
+    public Collection<String> flushCandidates() {
+        Set<String> members = redisTemplate.opsForSet().members(DIRTY_SET_KEY);
+        return members != null ? members : List.of();
+    }
+
+    @Override
+    public void remove(String roomId) {
+        redisTemplate.delete(STATE_KEY_PREFIX + roomId);
+        redisTemplate.opsForSet().remove(DIRTY_SET_KEY, roomId);
+        removedFlag.set(Boolean.TRUE);
+    }
+
+    private RoomState get(String roomId) {
+        String json = redisTemplate.opsForValue().get(STATE_KEY_PREFIX + roomId);
+        if (json == null) {
+            return null;
+        }
+        try {
+            return stateMapper.readValue(json, RoomState.class);
+        } catch (JsonProcessingException e) {
+            log.error("無法解析 Redis 中的房間狀態: {}", roomId, e);
+            throw new RuntimeException("讀取房間狀態失敗", e);
+        }
+    }
+
+    private void put(RoomState state) {
+        String json;
+        try {
+            json = stateMapper.writeValueAsString(state);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("保存房間狀態失敗", e);
+        }
+        redisTemplate.opsForValue().set(STATE_KEY_PREFIX + state.getRoomId(), json,
+                Duration.ofSeconds(roomTimeoutSeconds));
+        if (state.isDirty()) {
+            redisTemplate.opsForSet().add(DIRTY_SET_KEY, state.getRoomId());
+        } else {
+            redisTemplate.opsForSet().remove(DIRTY_SET_KEY, state.getRoomId());
+        }
+    }
+
+    private String lock(String roomId) {
+        String key = LOCK_KEY_PREFIX + roomId;
+        String token = UUID.randomUUID().toString();
+        long deadline = System.currentTimeMillis() + lockWaitMillis;
+        while (true) {
+            Boolean acquired = redisTemplate.opsForValue()
+                    .setIfAbsent(key, token, Duration.ofMillis(lockTimeoutMillis));
+            if (Boolean.TRUE.equals(acquired)) {
+                return token;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                log.warn("取得房間鎖逾時: {}", roomId);
+                throw new RuntimeException("房間忙碌中，請稍後再試");
+            }
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("取得房間鎖時被中斷", e);
+            }
+        }
+    }
+
+    private void unlock(String roomId, String token) {
+        redisTemplate.execute(UNLOCK_SCRIPT, List.of(LOCK_KEY_PREFIX + roomId), token);
+    }
+}
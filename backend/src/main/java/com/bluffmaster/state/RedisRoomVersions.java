@@ -0,0 +1,54 @@
+package com.bluffmaster.state;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 多節點模式：版本號以 Redis INCR 在所有節點間共用，計數器與房間狀態一樣在 room-timeout 後過期
+ */
+@Component
+@ConditionalOnProperty(name = "game.state.store", havingValue = "redis")
+public class RedisRoomVersions implements RoomVersions {
+
+    private static final String KEY_PREFIX = "bluffmaster:room-version:";
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${game.room-timeout}")
+    private long roomTimeoutSeconds;
+
+    public RedisRoomVersions(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public long next(String roomId) {
+        String key = KEY_PREFIX + roomId;
+        initialize(key);
+        Long version = redisTemplate.opsForValue().increment(key);
+        redisTemplate.expire(key, Duration.ofSeconds(roomTimeoutSeconds));
+        return version;
+    }
+
+    @Override
+    public long current(String roomId) {
+        String key = KEY_PREFIX + roomId;
+        initialize(key);
+        String version = redisTemplate.opsForValue().get(key);
+        return version != null ? Long.parseLong(version) : 0;
+    }
+
+    @Override
+    public void remove(String roomId) {
+        redisTemplate.delete(KEY_PREFIX + roomId);
+    }
+
+    private void initialize(String key) {
+        redisTemplate.opsForValue().setIfAbsent(key, String.valueOf(System.currentTimeMillis()),
+                Duration.ofSeconds(roomTimeoutSeconds));
+    }
+}
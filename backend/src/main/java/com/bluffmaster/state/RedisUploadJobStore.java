@@ -0,0 +1,67 @@
+package com.bluffmaster.state;
+
+import com.bluffmaster.dto.UploadJobDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * 多節點模式：任務快照以 JSON 保存在 Redis，狀態查詢落在任何節點都能取得
+ * 處理中的任務與房間狀態一樣在 room-timeout 後過期，完成或失敗後改為 job-retention
+ */
+@Component
+@ConditionalOnProperty(name = "game.state.store", havingValue = "redis")
+@Slf4j
+public class RedisUploadJobStore implements UploadJobStore {
+
+    private static final String KEY_PREFIX = "bluffmaster:upload-job:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${game.room-timeout}")
+    private long roomTimeoutSeconds;
+
+    @Value("${game.image-processing.job-retention:600000}")
+    private long jobRetention;
+
+    public RedisUploadJobStore(StringRedisTemplate redisTemplate, ObjectMapper objectMapper) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void save(UploadJobDTO job) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(job);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("保存上傳任務狀態失敗", e);
+        }
+        Duration ttl = job.getStatus() == UploadJobDTO.JobStatus.PROCESSING
+                ? Duration.ofSeconds(roomTimeoutSeconds)
+                : Duration.ofMillis(jobRetention);
+        redisTemplate.opsForValue().set(KEY_PREFIX + job.getJobId(), json, ttl);
+    }
+
+    @Override
+    public Optional<UploadJobDTO> find(String jobId) {
+        String json = redisTemplate.opsForValue().get(KEY_PREFIX + jobId);
+        if (json == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(objectMapper.readValue(json, UploadJobDTO.class));
+        } catch (JsonProcessingException e) {
+            log.error("無法解析 Redis 中的上傳任務狀態: {}", jobId, e);
+            throw new RuntimeException("讀取上傳任務狀態失敗", e);
+        }
+    }
+}
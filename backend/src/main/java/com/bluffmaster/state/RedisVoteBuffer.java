@@ -0,0 +1,137 @@
+package com.bluffmaster.state;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 多節點模式：選票規則與投票表保存在 Redis（HASH），任何節點收到的選票都寫入同一個投票表
+ * 寫入與關閉都以 Lua 腳本執行，Redis 單執行緒保證關閉後不會再寫入，不需要房間鎖
+ */
+@Component
+@ConditionalOnProperty(name = "game.state.store", havingValue = "redis")
+@Slf4j
+public class RedisVoteBuffer implements VoteBuffer {
+
+    private static final String BALLOT_KEY_PREFIX = "bluffmaster:ballot:";
+    private static final String VOTES_KEY_PREFIX = "bluffmaster:ballot-votes:";
+
+    // 選票規則存在時才寫入選票（規則在關閉時刪除）
+    private static final RedisScript<Long> OFFER_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then return 0 end "
+                    + "redis.call('hset', KEYS[2], ARGV[1], ARGV[2]) "
+                    + "redis.call('expire', KEYS[2], ARGV[3]) "
+                    + "return 1",
+            Long.class);
+
+    // 取出所有選票並刪除選票規則與投票表
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> CLOSE_SCRIPT = new DefaultRedisScript<>(
+            "local votes = redis.call('hgetall', KEYS[2]) "
+                    + "redis.call('del', KEYS[1], KEYS[2]) "
+                    + "return votes",
+            List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    // 選票規則不會改變，各節點快取已讀取過的規則
+    private final Map<String, Ballot> ballots = new ConcurrentHashMap<>();
+
+    @Value("${game.room-timeout}")
+    private long roomTimeoutSeconds;
+
+    public RedisVoteBuffer(StringRedisTemplate redisTemplate, ObjectMapper objectMapper) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void open(Ballot ballot) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(ballot);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("保存選票規則失敗", e);
+        }
+        redisTemplate.opsForValue().setIfAbsent(BALLOT_KEY_PREFIX + ballot.roundId(), json,
+                Duration.ofSeconds(roomTimeoutSeconds));
+        ballots.put(ballot.roundId(), ballot);
+    }
+
+    @Override
+    public boolean offer(String roundId, String playerId, String imageUrl) {
+        Ballot ballot = ballots.get(roundId);
+        if (ballot == null) {
+            ballot = load(roundId);
+            if (ballot == null) {
+                return false;
+            }
+        }
+        ballot.validate(playerId, imageUrl);
+
+        Long written = redisTemplate.execute(OFFER_SCRIPT,
+                List.of(BALLOT_KEY_PREFIX + roundId, VOTES_KEY_PREFIX + roundId),
+                playerId, imageUrl, String.valueOf(roomTimeoutSeconds));
+        if (written == null || written == 0) {
+            ballots.remove(roundId);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public Map<String, String> peek(String roundId) {
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(VOTES_KEY_PREFIX + roundId);
+        Map<String, String> votes = new HashMap<>();
+        entries.forEach((playerId, imageUrl) -> votes.put((String) playerId, (String) imageUrl));
+        return votes;
+    }
+
+    @Override
+    public Map<String, String> close(String roundId) {
+        ballots.remove(roundId);
+        List<?> flat = redisTemplate.execute(CLOSE_SCRIPT,
+                List.of(BALLOT_KEY_PREFIX + roundId, VOTES_KEY_PREFIX + roundId));
+        Map<String, String> votes = new HashMap<>();
+        if (flat != null) {
+            for (int i = 0; i + 1 < flat.size(); i += 2) {
+                votes.put((String) flat.get(i), (String) flat.get(i + 1));
+            }
+        }
+        return votes;
+    }
+
+    @Override
+    public Collection<String> openRoundIds() {
+        return List.copyOf(ballots.keySet());
+    }
+
+    private Ballot load(String roundId) {
+        String json = redisTemplate.opsForValue().get(BALLOT_KEY_PREFIX + roundId);
+        if (json == null) {
+            return null;
+        }
+        try {
+            Ballot ballot = objectMapper.readValue(json, Ballot.class);
+            ballots.put(roundId, ballot);
+            return ballot;
+        } catch (JsonProcessingException e) {
+            log.error("無法解析 Redis 中的選票規則: {}", roundId, e);
+            throw new RuntimeException("讀取選票規則失敗", e);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.bluffmaster.state;
+
+import com.bluffmaster.config.VirtualThreadSupport;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 以房間為單位的命令信箱（actor 模型）
+ * 每個房間有自己的 FIFO 信箱，同一房間的命令依提交順序逐一執行，不同房間的信箱在共用執行緒池上並行；
+ * WebSocket 的入站執行緒只負責把命令放進信箱，不會因為等待同一房間的鎖而阻塞其他房間的訊息。
+ * 命令會阻塞在 JDBC、Redis 與 GCS 上，執行緒數依阻塞等待而非 CPU 核心數設定；
+ * 一個信箱每次最多連續執行 max-batch 個命令後讓出執行緒，忙碌的房間不會長期佔用執行緒。
+ * 信箱閒置時自動移除，放入命令與移除在同一個 map 操作中完成，同一房間不會同時存在兩個信箱。
+ * 多節點模式下信箱只在本節點內串行，跨節點仍由 RoomStateStore 的房間鎖保證互斥
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RoomCommandExecutor {
+
+    // 命令大部分時間在等待 I/O，執行緒數遠大於 CPU 核心數
+    private static final int BLOCKING_THREADS_PER_CPU = 8;
+
+    // 不存在的回合的命令放進的信箱名稱前綴（與房間 ID 區分）
+    private static final String UNKNOWN_ROUND_PREFIX = "round:";
+
+    private final GameStateEngine gameStateEngine;
+    private final VirtualThreadSupport virtualThreadSupport;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${game.room-executor.pool-size:32}")
+    private int poolSize;
+
+    @Value("${game.room-executor.max-batch:16}")
+    private int maxBatch;
+
+    private ThreadPoolTaskExecutor executor;
+    private Timer queueWait;
+
+    private final Map<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors() * BLOCKING_THREADS_PER_CPU;
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("room-");
+        // 虛擬執行緒模式下命令等待 JDBC/Redis 時不佔用平台執行緒
+        virtualThreadSupport.apply(executor, "room-");
+        executor.initialize();
+
+        queueWait = Timer.builder("game.room.command.wait")
+                .description("房間命令在信箱中等待執行的時間")
+                .register(meterRegistry);
+        log.info("房間命令執行緒池已啟動，執行緒數: {}", executor.getMaxPoolSize());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 把命令放進房間的信箱，命令拋出的異常只記錄日誌
+     */
+    public void submit(String roomId, Runnable command) {
+        Envelope envelope = new Envelope(command, System.nanoTime());
+        Mailbox[] idle = new Mailbox[1];
+        // 在 map 的同一個操作中取得（或建立）信箱並放入命令，與閒置信箱的移除互斥
+        mailboxes.compute(roomId, (id, existing) -> {
+            Mailbox mailbox = existing != null ? existing : new Mailbox(id);
+            if (mailbox.post(envelope)) {
+                idle[0] = mailbox;
+            }
+            return mailbox;
+        });
+        if (idle[0] != null) {
+            executor.execute(idle[0]);
+        }
+    }
+
+    /**
+     * 把有返回值的命令放進房間的信箱，返回的 future 在命令執行完後完成（命令拋出的異常由 future 傳回）
+     */
+    public <T> CompletableFuture<T> call(String roomId, Supplier<T> command) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        submit(roomId, () -> {
+            try {
+                result.complete(command.get());
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 把命令放進回合所屬房間的信箱；回合不存在時放進以回合 ID 為名的信箱，仍在執行緒池上執行，由命令自行回報錯誤
+     */
+    public void submitForRound(String roundId, Runnable command) {
+        String roomId = gameStateEngine.findRoomIdOfRound(roundId);
+        submit(roomId != null ? roomId : UNKNOWN_ROUND_PREFIX + roundId, command);
+    }
+
+    private final class Mailbox implements Runnable {
+        private final String key;
+        private final Queue<Envelope> queue = new ConcurrentLinkedQueue<>();
+        // 尚未執行完的命令數，由 0 變 1 的提交者負責排程信箱
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private Mailbox(String key) {
+            this.key = key;
+        }
+
+        /**
+         * 放入命令，返回信箱是否由閒置變為忙碌（調用方需排程信箱）
+         */
+        boolean post(Envelope envelope) {
+            queue.add(envelope);
+            return pending.getAndIncrement() == 0;
+        }
+
+        @Override
+        public void run() {
+            for (int executed = 0; executed < maxBatch; executed++) {
+                Envelope envelope = queue.poll();
+                queueWait.record(System.nanoTime() - envelope.postedAt(), TimeUnit.NANOSECONDS);
+                try {
+                    envelope.command().run();
+                } catch (Exception e) {
+                    log.warn("房間命令執行失敗: {}", e.getMessage(), e);
+                }
+                if (pending.decrementAndGet() == 0) {
+                    // 閒置時移除；移除前有新命令放入時 pending 不為 0，保留信箱
+                    mailboxes.computeIfPresent(key, (id, mailbox) ->
+                            mailbox == this && pending.get() == 0 ? null : mailbox);
+                    return;
+                }
+            }
+            // 還有命令但已達上限，重新排到執行緒池佇列尾端，讓其他房間的信箱先執行
+            executor.execute(this);
+        }
+    }
+
+    private record Envelope(Runnable command, long postedAt) {
+    }
+}
@@ -0,0 +1,168 @@
+package com.bluffmaster.state;
+
+import com.bluffmaster.dto.VoteResult;
+import com.bluffmaster.model.GameRound;
+import com.bluffmaster.model.Player;
+import com.bluffmaster.model.Room;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 遊戲中房間的記憶體狀態（房間、玩家、當前回合）
+ * 只能在 GameStateEngine 的命令內讀寫，變更後標記為 dirty，由 GameStateEngine 非同步寫回資料庫
+ * 在 redis 模式下整個物件會序列化為 JSON 保存
+ */
+public class RoomState {
+
+    @Getter
+    private final String roomId;
+    @Getter
+    private final Room room;
+    private final Map<String, Player> players = new LinkedHashMap<>();
+    @Getter
+    private GameRound currentRound;
+    // 當前回合公布結果時計算的投票結果，結束回合時直接套用，不重新計算（不寫回資料庫）
+    @Getter
+    private Map<String, VoteResult> roundResults;
+
+    private boolean roomDirty;
+    private boolean roundDirty;
+    private final Set<String> dirtyPlayerIds = new HashSet<>();
+    // 換上新回合時尚未寫回的舊回合（例如剛結束的回合），與當前回合一起寫回
+    private final List<GameRound> pendingRounds = new ArrayList<>();
+
+    // 每次標記或清除 dirty 時遞增，用於判斷命令是否修改了狀態（不序列化）
+    private transient long modCount;
+
+    // 供 JSON 反序列化使用
+    private RoomState() {
+        this.roomId = null;
+        this.room = null;
+    }
+
+    RoomState(Room room, List<Player> players, GameRound currentRound) {
+        this.roomId = room.getId();
+        this.room = room;
+        for (Player player : players) {
+            this.players.put(player.getId(), player);
+        }
+        this.currentRound = currentRound;
+    }
+
+    public Player getPlayer(String playerId) {
+        return players.get(playerId);
+    }
+
+    public Collection<Player> getPlayerList() {
+        return players.values();
+    }
+
+    public boolean hasRound(String roundId) {
+        return currentRound != null && currentRound.getId().equals(roundId);
+    }
+
+    /**
+     * 換上新回合；舊回合還有未寫回的變更時保留到下一次寫回
+     */
+    void setCurrentRound(GameRound currentRound) {
+        if (roundDirty && this.currentRound != null) {
+            pendingRounds.add(this.currentRound);
+        }
+        roundDirty = false;
+        this.currentRound = currentRound;
+        this.roundResults = null;
+        modCount++;
+    }
+
+    public void setRoundResults(Map<String, VoteResult> roundResults) {
+        this.roundResults = roundResults;
+        modCount++;
+    }
+
+    public boolean isGameFinished() {
+        return room.getStatus() == Room.RoomStatus.FINISHED;
+    }
+
+    public boolean isDirty() {
+        return roomDirty || roundDirty || !dirtyPlayerIds.isEmpty() || !pendingRounds.isEmpty();
+    }
+
+    public void markRoomDirty() {
+        roomDirty = true;
+        modCount++;
+    }
+
+    public void markRoundDirty() {
+        roundDirty = true;
+        modCount++;
+    }
+
+    public void markPlayerDirty(String playerId) {
+        dirtyPlayerIds.add(playerId);
+        modCount++;
+    }
+
+    long getModCount() {
+        return modCount;
+    }
+
+    /**
+     * 取出待寫回的資料快照並清除 dirty 標記
+     */
+    Snapshot drainDirty() {
+        // 依回合順序寫回：先寫已被換下的舊回合，再寫當前回合
+        List<GameRound> rounds = new ArrayList<>(pendingRounds);
+        if (roundDirty && currentRound != null) {
+            rounds.add(EntityCopies.copy(currentRound));
+        }
+        Snapshot snapshot = new Snapshot(roomDirty ? EntityCopies.copy(room) : null, rounds, new ArrayList<>());
+        for (String playerId : dirtyPlayerIds) {
+            Player player = players.get(playerId);
+            if (player != null) {
+                snapshot.players().add(EntityCopies.copy(player));
+            }
+        }
+        roomDirty = false;
+        roundDirty = false;
+        dirtyPlayerIds.clear();
+        pendingRounds.clear();
+        modCount++;
+        return snapshot;
+    }
+
+    /**
+     * 寫回失敗時恢復 dirty 標記，等待下一次重試；期間已被換下的回合放回待寫回列表
+     */
+    void restoreDirty(Snapshot snapshot) {
+        if (snapshot.room() != null) {
+            roomDirty = true;
+        }
+        List<GameRound> replaced = new ArrayList<>();
+        for (GameRound round : snapshot.rounds()) {
+            if (hasRound(round.getId())) {
+                roundDirty = true;
+            } else {
+                replaced.add(round);
+            }
+        }
+        // 快照中的回合比寫回失敗後才換下的回合早
+        pendingRounds.addAll(0, replaced);
+        for (Player player : snapshot.players()) {
+            dirtyPlayerIds.add(player.getId());
+        }
+        modCount++;
+    }
+
+    record Snapshot(Room room, List<GameRound> rounds, List<Player> players) {
+        boolean isEmpty() {
+            return room == null && rounds.isEmpty() && players.isEmpty();
+        }
+    }
+}
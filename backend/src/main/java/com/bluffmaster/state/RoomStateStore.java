@@ -0,0 +1,33 @@
+package com.bluffmaster.state;
+
+import java.util.Collection;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 遊戲中房間狀態的儲存位置
+ * local：單機記憶體；redis：多個後端節點共用同一份房間狀態
+ */
+public interface RoomStateStore {
+
+    /**
+     * 以房間為單位互斥地執行命令，狀態不存在時使用 loader 載入（loader 可返回 null）
+     * 命令對狀態的修改在返回後生效
+     */
+    <T> T execute(String roomId, Supplier<RoomState> loader, Function<RoomState, T> command);
+
+    /**
+     * 讀取房間狀態（不會從資料庫載入），狀態不存在時 reader 收到 null
+     */
+    <T> T read(String roomId, Function<RoomState, T> reader);
+
+    /**
+     * 需要檢查是否寫回資料庫的房間 ID
+     */
+    Collection<String> flushCandidates();
+
+    /**
+     * 移除房間狀態，調用方需在 execute 的命令內調用
+     */
+    void remove(String roomId);
+}
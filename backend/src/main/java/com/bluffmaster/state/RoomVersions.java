@@ -0,0 +1,25 @@
+package com.bluffmaster.state;
+
+/**
+ * 房間狀態版本號
+ * 每次房間狀態變更（玩家加入、離開、準備、分數等）取得一個遞增的版本號並隨增量廣播發送，
+ * 客戶端發現版本不連續時重新取得完整快照。
+ * 版本號從計數器建立時的毫秒時間戳開始，服務重啟或計數器過期後重新建立的版本號仍大於之前發出的版本號
+ */
+public interface RoomVersions {
+
+    /**
+     * 取得房間的下一個版本號
+     */
+    long next(String roomId);
+
+    /**
+     * 房間目前的版本號（快照在讀取資料前先取得版本號，之後的變更都會有更大的版本號）
+     */
+    long current(String roomId);
+
+    /**
+     * 移除房間的計數器
+     */
+    void remove(String roomId);
+}
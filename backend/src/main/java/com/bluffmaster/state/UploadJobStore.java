@@ -0,0 +1,23 @@
+package com.bluffmaster.state;
+
+import com.bluffmaster.dto.UploadJobDTO;
+
+import java.util.Optional;
+
+/**
+ * 非同步上傳任務的狀態
+ * 執行任務的節點每次進度變更時保存最新快照，任何節點都能回應狀態查詢；
+ * 完成或失敗的任務保留 job-retention 後移除
+ */
+public interface UploadJobStore {
+
+    /**
+     * 保存任務的最新快照（覆蓋之前的快照）
+     */
+    void save(UploadJobDTO job);
+
+    /**
+     * 任務的最新快照，不存在或已過期時返回空
+     */
+    Optional<UploadJobDTO> find(String jobId);
+}
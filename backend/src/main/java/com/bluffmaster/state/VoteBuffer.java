@@ -0,0 +1,40 @@
+package com.bluffmaster.state;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 投票階段的選票緩衝區
+ * 選票在房間鎖外驗證並寫入每個回合的投票表後立即返回，同一回合的投票互不阻塞；
+ * 公布結果（或直接結束回合）時關閉投票表並一次合併到回合狀態，投票期間另有排程定期合併，
+ * 合併後由 GameStateEngine 批次寫回 round_votes
+ * 投票表中主講者的選票即為主講者選擇的說謊圖片
+ */
+public interface VoteBuffer {
+
+    /**
+     * 開啟回合的投票表，已開啟時不做任何事
+     */
+    void open(Ballot ballot);
+
+    /**
+     * 記錄選票（同一玩家重複投票時覆蓋），選票不合法時拋出異常；
+     * 投票表不存在或已關閉時返回 false，由調用方在房間鎖內判斷回合狀態
+     */
+    boolean offer(String roundId, String playerId, String imageUrl);
+
+    /**
+     * 目前已收到的選票（playerId -> imageUrl），投票表不存在時返回空表
+     */
+    Map<String, String> peek(String roundId);
+
+    /**
+     * 關閉投票表並返回所有選票，之後的 offer 返回 false；投票表不存在時返回空表
+     */
+    Map<String, String> close(String roundId);
+
+    /**
+     * 本節點已知的開啟中投票表（用於定期合併）
+     */
+    Collection<String> openRoundIds();
+}
@@ -0,0 +1,86 @@
+package com.bluffmaster.websocket;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 記錄每個連線發送緩衝區的 SubProtocolWebSocketHandler
+ * Spring 為每個連線建立的 ConcurrentWebSocketSessionDecorator 會在客戶端接收太慢時累積待發送的訊息，
+ * 超過 game.websocket.send-buffer-size-limit 或 send-time-limit 時直接斷開該連線（慢速客戶端驅逐）；
+ * 這裡保留這些裝飾器，把緩衝中的位元組數與被驅逐的連線數輸出為指標
+ */
+@Slf4j
+public class MeteredSubProtocolWebSocketHandler extends SubProtocolWebSocketHandler {
+
+    // sessionId -> 帶發送緩衝區的連線
+    private final Map<String, ConcurrentWebSocketSessionDecorator> sessions = new ConcurrentHashMap<>();
+
+    public MeteredSubProtocolWebSocketHandler(MessageChannel clientInboundChannel,
+                                              SubscribableChannel clientOutboundChannel,
+                                              MeterRegistry meterRegistry) {
+        super(clientInboundChannel, clientOutboundChannel);
+
+        Gauge.builder("game.websocket.sessions", sessions, Map::size)
+                .description("目前的 WebSocket 連線數")
+                .register(meterRegistry);
+        Gauge.builder("game.websocket.session.buffered.bytes", this, MeteredSubProtocolWebSocketHandler::totalBufferedBytes)
+                .description("所有連線等待發送的位元組數")
+                .tag("stat", "total")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("game.websocket.session.buffered.bytes", this, MeteredSubProtocolWebSocketHandler::maxBufferedBytes)
+                .description("單一連線等待發送的最大位元組數")
+                .tag("stat", "max")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        FunctionCounter.builder("game.websocket.sessions.evicted", this,
+                        handler -> handler.getStats().getLimitExceededSessions())
+                .description("發送緩衝或發送時間超過上限而被斷開的連線數")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected WebSocketSession decorateSession(WebSocketSession session) {
+        WebSocketSession decorated = super.decorateSession(session);
+        if (decorated instanceof ConcurrentWebSocketSessionDecorator concurrent) {
+            sessions.put(session.getId(), concurrent);
+        }
+        return decorated;
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+        ConcurrentWebSocketSessionDecorator removed = sessions.remove(session.getId());
+        if (removed != null && closeStatus.getCode() == CloseStatus.SESSION_NOT_RELIABLE.getCode()) {
+            log.warn("連線 {} 接收太慢已被斷開，未發送緩衝: {} bytes", session.getId(), removed.getBufferSize());
+        }
+        super.afterConnectionClosed(session, closeStatus);
+    }
+
+    private double totalBufferedBytes() {
+        long total = 0;
+        for (ConcurrentWebSocketSessionDecorator session : sessions.values()) {
+            total += session.getBufferSize();
+        }
+        return total;
+    }
+
+    private double maxBufferedBytes() {
+        int max = 0;
+        for (ConcurrentWebSocketSessionDecorator session : sessions.values()) {
+            max = Math.max(max, session.getBufferSize());
+        }
+        return max;
+    }
+}
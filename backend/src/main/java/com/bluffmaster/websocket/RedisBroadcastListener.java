@@ -0,0 +1,21 @@
+package com.bluffmaster.websocket;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 訂閱 Redis 廣播頻道，將其他節點（包括本節點）發布的房間廣播送到本機的 STOMP broker
+ */
+@RequiredArgsConstructor
+public class RedisBroadcastListener implements MessageListener {
+
+    private final RoomBroadcaster roomBroadcaster;
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        roomBroadcaster.deliverLocally(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,72 @@
+package com.bluffmaster.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 房間廣播的統一出口
+ * local 模式直接交給本機的 STOMP broker；redis 模式先發布到 Redis 頻道，
+ * 再由每個節點的 RedisBroadcastListener 轉發給連接在該節點上的訂閱者；
+ * 使用外部訊息代理（game.broker.mode=relay）時所有節點共用訂閱，直接發送即可
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RoomBroadcaster {
+
+    public static final String CHANNEL = "bluffmaster:broadcast";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${game.state.store:local}")
+    private String stateStore;
+
+    @Value("${game.broker.mode:simple}")
+    private String brokerMode;
+
+    public void send(String destination, Object payload) {
+        if (!"redis".equals(stateStore) || "relay".equals(brokerMode)) {
+            messagingTemplate.convertAndSend(destination, payload);
+            return;
+        }
+
+        ObjectNode envelope = objectMapper.createObjectNode();
+        envelope.put("destination", destination);
+        envelope.set("payload", objectMapper.valueToTree(payload));
+        try {
+            redisTemplate.convertAndSend(CHANNEL, objectMapper.writeValueAsString(envelope));
+        } catch (JsonProcessingException e) {
+            log.error("廣播訊息序列化失敗: {}", destination, e);
+            throw new RuntimeException("廣播失敗", e);
+        }
+    }
+
+    /**
+     * 將從 Redis 收到的廣播轉發給本節點的訂閱者
+     */
+    void deliverLocally(String message) {
+        try {
+            JsonNode envelope = objectMapper.readTree(message);
+            String destination = envelope.get("destination").asText();
+            JsonNode payload = envelope.get("payload");
+            // 純文字訊息（例如斷線玩家 ID）保持原樣，其他以 JSON 發送
+            if (payload.isTextual()) {
+                messagingTemplate.convertAndSend(destination, payload.asText());
+            } else {
+                messagingTemplate.convertAndSend(destination, payload);
+            }
+        } catch (Exception e) {
+            log.error("轉發 Redis 廣播失敗: {}", message, e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.bluffmaster.websocket;
+
+import com.bluffmaster.dto.PlayerDeltaDTO;
+import com.bluffmaster.dto.RoomDTO;
+import com.bluffmaster.dto.RoomDeltaDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 房間更新廣播（/topic/room/{roomId}）
+ * 一般的狀態變更只廣播變更的欄位並附上遞增的版本號；完整快照只在客戶端要求時發送。
+ * 版本號由變更方在房間鎖或交易內指派（RoomService），版本號的順序與變更提交的順序一致
+ */
+@Component
+@RequiredArgsConstructor
+public class RoomUpdatePublisher {
+
+    private final RoomBroadcaster roomBroadcaster;
+
+    /**
+     * 廣播已指派版本號的增量更新
+     */
+    public void publish(RoomDeltaDTO delta) {
+        if (delta.getVersion() == null) {
+            throw new IllegalStateException("增量更新缺少版本號: " + delta.getRoomId());
+        }
+        roomBroadcaster.send("/topic/room/" + delta.getRoomId(), delta);
+    }
+
+    /**
+     * 廣播單一玩家的變更
+     */
+    public void publishPlayer(String roomId, long version, PlayerDeltaDTO player) {
+        publish(RoomDeltaDTO.builder()
+                .roomId(roomId)
+                .version(version)
+                .players(List.of(player))
+                .build());
+    }
+
+    /**
+     * 廣播完整快照（快照已帶有與資料在同一個鎖內讀取的版本號）
+     */
+    public void publishSnapshot(RoomDTO room) {
+        roomBroadcaster.send("/topic/room/" + room.getId(), room);
+    }
+}
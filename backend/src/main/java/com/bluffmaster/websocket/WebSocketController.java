@@ -4,41 +4,52 @@ import com.bluffmaster.dto.GameRoundDTO;
 import com.bluffmaster.dto.RoomDTO;
 import com.bluffmaster.service.GameService;
 import com.bluffmaster.service.RoomService;
+import com.bluffmaster.service.RoundPhaseScheduler;
+import com.bluffmaster.state.RoomCommandExecutor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
 import java.util.Map;
 
+/**
+ * STOMP 遊戲指令，每個指令放進所屬房間的信箱（RoomCommandExecutor）後立即返回，
+ * 同一房間的指令依到達順序串行執行；投票例外，直接寫入投票緩衝區
+ */
 @Controller
 @RequiredArgsConstructor
 @Slf4j
 public class WebSocketController {
 
-    private final SimpMessagingTemplate messagingTemplate;
+    private final RoomBroadcaster roomBroadcaster;
+    private final RoomUpdatePublisher roomUpdatePublisher;
     private final RoomService roomService;
     private final GameService gameService;
+    private final RoundPhaseScheduler roundPhaseScheduler;
+    private final RoomCommandExecutor roomCommandExecutor;
 
     @MessageMapping("/room/update")
     public void broadcastRoomUpdate(@Payload String roomId) {
-        RoomDTO room = roomService.getRoom(roomId);
-        messagingTemplate.convertAndSend("/topic/room/" + roomId, room);
+        roomCommandExecutor.submit(roomId, () -> {
+            RoomDTO room = roomService.getRoom(roomId);
+            roomUpdatePublisher.publishSnapshot(room);
+        });
     }
 
     @MessageMapping("/game/start-round")
     public void startRound(@Payload Map<String, String> payload) {
         String roomId = payload.get("roomId");
-        GameRoundDTO round = gameService.startRound(roomId);
-        
-        // 廣播回合開始
-        messagingTemplate.convertAndSend("/topic/room/" + roomId + "/round", round);
-        
-        // 廣播房間更新（更新回合數）
-        RoomDTO room = roomService.getRoom(roomId);
-        messagingTemplate.convertAndSend("/topic/room/" + roomId, room);
+        roomCommandExecutor.submit(roomId, () -> {
+            GameRoundDTO round = gameService.startRound(roomId);
+
+            // 廣播回合開始
+            roomBroadcaster.send("/topic/room/" + roomId + "/round", round);
+
+            // 廣播房間更新（更新回合數）
+            roomUpdatePublisher.publish(roomService.getGameUpdate(roomId));
+        });
     }
 
     @MessageMapping("/game/vote")
@@ -46,59 +57,55 @@ public class WebSocketController {
         String roundId = (String) payload.get("roundId");
         String playerId = (String) payload.get("playerId");
         String imageUrl = (String) payload.get("imageUrl");
-        
+        String roomId = (String) payload.get("roomId");
+
+        // 投票直接在入站執行緒寫入投票緩衝區（執行緒安全，不經過房間信箱）；
+        // 公布結果時在寫鎖下關閉投票表，已確認的選票一定會被計入
         gameService.vote(playerId, imageUrl, roundId);
-        
+
         // 廣播投票狀態
-        String roomId = (String) payload.get("roomId");
         Map<String, Object> voteStatus = Map.of(
             "playerId", playerId,
             "imageUrl", imageUrl,
             "roundId", roundId
         );
-        messagingTemplate.convertAndSend("/topic/room/" + roomId + "/vote", voteStatus);
+        roomBroadcaster.send("/topic/room/" + roomId + "/vote", voteStatus);
     }
 
     @MessageMapping("/game/next-phase")
     public void nextPhase(@Payload Map<String, String> payload) {
         log.info("收到 next-phase 請求: {}", payload);
         String roundId = payload.get("roundId");
-        GameRoundDTO round = gameService.nextPhase(roundId);
-        String roomId = round.getRoomId();
-        log.info("廣播回合更新到房間 {}: phase={}, roundId={}", roomId, round.getPhase(), round.getId());
-        messagingTemplate.convertAndSend("/topic/room/" + roomId + "/round", round);
+        roomCommandExecutor.submitForRound(roundId, () -> {
+            GameRoundDTO round = gameService.nextPhase(roundId);
+            String roomId = round.getRoomId();
+            log.info("廣播回合更新到房間 {}: phase={}, roundId={}", roomId, round.getPhase(), round.getId());
+            roomBroadcaster.send("/topic/room/" + roomId + "/round", round);
+        });
     }
 
     @MessageMapping("/game/start-voting")
     public void startVoting(@Payload Map<String, String> payload) {
         log.info("收到 start-voting 請求: {}", payload);
         String roundId = payload.get("roundId");
-        GameRoundDTO round = gameService.startVoting(roundId);
-        String roomId = round.getRoomId();
-        log.info("廣播回合更新到房間 {}: phase={}, roundId={}", roomId, round.getPhase(), round.getId());
-        messagingTemplate.convertAndSend("/topic/room/" + roomId + "/round", round);
+        roomCommandExecutor.submitForRound(roundId, () -> roundPhaseScheduler.startVoting(roundId));
     }
 
+    /**
+     * 投票截止後由伺服器自動公布結果，這裡只用於提前公布
+     */
     @MessageMapping("/game/reveal")
     public void revealResult(@Payload Map<String, String> payload) {
         String roundId = payload.get("roundId");
-        GameRoundDTO round = gameService.revealResult(roundId);
-        String roomId = round.getRoomId();
-        messagingTemplate.convertAndSend("/topic/room/" + roomId + "/round", round);
+        roomCommandExecutor.submitForRound(roundId, () -> roundPhaseScheduler.reveal(roundId));
     }
 
+    /**
+     * 公布結果後由伺服器自動結束回合，這裡只用於提前結束
+     */
     @MessageMapping("/game/finish-round")
     public void finishRound(@Payload Map<String, String> payload) {
         String roundId = payload.get("roundId");
-        GameRoundDTO round = gameService.finishRound(roundId);
-        String roomId = round.getRoomId();
-        
-        // 廣播回合結果
-        messagingTemplate.convertAndSend("/topic/room/" + roomId + "/round-result", round);
-        
-        // 廣播房間更新（更新玩家分數）
-        RoomDTO room = roomService.getRoom(roomId);
-        messagingTemplate.convertAndSend("/topic/room/" + roomId, room);
+        roomCommandExecutor.submitForRound(roundId, () -> roundPhaseScheduler.finish(roundId));
     }
 }
-
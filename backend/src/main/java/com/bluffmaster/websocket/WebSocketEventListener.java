@@ -1,10 +1,9 @@
 package com.bluffmaster.websocket;
 
-import com.bluffmaster.service.GameService;
+import com.bluffmaster.service.RoundPhaseScheduler;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.event.EventListener;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.messaging.SessionConnectedEvent;
@@ -15,8 +14,8 @@ import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 @Slf4j
 public class WebSocketEventListener {
 
-    private final SimpMessagingTemplate messagingTemplate;
-    private final GameService gameService;
+    private final RoomBroadcaster roomBroadcaster;
+    private final RoundPhaseScheduler roundPhaseScheduler;
 
     @EventListener
     public void handleWebSocketConnectListener(SessionConnectedEvent event) {
@@ -30,12 +29,12 @@ public class WebSocketEventListener {
         
         if (playerId != null) {
             log.info("玩家斷線: " + playerId);
-            gameService.handlePlayerDisconnect(playerId);
+            roundPhaseScheduler.playerDisconnected(playerId);
             
             // 通知房間其他玩家
             String roomId = (String) headerAccessor.getSessionAttributes().get("roomId");
             if (roomId != null) {
-                messagingTemplate.convertAndSend("/topic/room/" + roomId + "/player-disconnect", playerId);
+                roomBroadcaster.send("/topic/room/" + roomId + "/player-disconnect", playerId);
             }
         }
     }
@@ -0,0 +1,113 @@
+package com.bluffmaster.benchmark;
+
+import com.bluffmaster.service.ImageResizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 12MP（4000x3000）照片縮放到上傳的最大寬度 1080：舊的 getScaledInstance(SCALE_SMOOTH) 與 ImageResizer 的比較
+ * 執行方式（在 backend 目錄）：
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.bluffmaster.benchmark.ImageResizerBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageResizerBenchmark {
+
+    private static final int TARGET_WIDTH = 1080;
+
+    @Param({"4000x3000"})
+    private String sourceSize;
+
+    private final ImageResizer imageResizer = new ImageResizer();
+    private BufferedImage source;
+    private int targetHeight;
+
+    @Setup
+    public void setUp() {
+        String[] size = sourceSize.split("x");
+        int width = Integer.parseInt(size[0]);
+        int height = Integer.parseInt(size[1]);
+        source = photoLike(width, height);
+        targetHeight = height * TARGET_WIDTH / width;
+    }
+
+    @Benchmark
+    public BufferedImage getScaledInstance() {
+        Image scaled = source.getScaledInstance(TARGET_WIDTH, targetHeight, Image.SCALE_SMOOTH);
+        BufferedImage output = new BufferedImage(TARGET_WIDTH, targetHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = output.createGraphics();
+        try {
+            g.drawImage(scaled, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return output;
+    }
+
+    @Benchmark
+    public BufferedImage imageResizer() throws IOException {
+        return imageResizer.resize(source, TARGET_WIDTH, targetHeight);
+    }
+
+    /**
+     * 漸層加雜訊，避免純色圖片讓縮放過於理想化；與 ImageIO 解碼 JPEG 的結果相同使用 TYPE_3BYTE_BGR
+     */
+    private static BufferedImage photoLike(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setPaint(new GradientPaint(0, 0, new Color(30, 90, 160), width, height, new Color(220, 180, 60)));
+            g.fillRect(0, 0, width, height);
+        } finally {
+            g.dispose();
+        }
+        Random random = new Random(42);
+        for (int y = 0; y < height; y += 2) {
+            for (int x = 0; x < width; x += 2) {
+                int rgb = image.getRGB(x, y);
+                int noise = random.nextInt(40) - 20;
+                int r = clamp(((rgb >> 16) & 0xff) + noise);
+                int gr = clamp(((rgb >> 8) & 0xff) + noise);
+                int b = clamp((rgb & 0xff) + noise);
+                image.setRGB(x, y, (r << 16) | (gr << 8) | b);
+            }
+        }
+        return image;
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ImageResizerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
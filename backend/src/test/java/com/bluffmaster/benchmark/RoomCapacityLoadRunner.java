@@ -0,0 +1,114 @@
+package com.bluffmaster.benchmark;
+
+import com.bluffmaster.config.VirtualThreadSupport;
+import com.bluffmaster.state.RoomCommandExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 同時進行的房間數負載測試：平台執行緒與虛擬執行緒模式的比較
+ * 每個房間每秒提交一個命令到 RoomCommandExecutor，命令阻塞 20ms 模擬 JDBC/Redis 往返；
+ * 房間數逐步加倍，直到命令延遲（提交到完成）的 p99 超過 250ms，最後一個未超過的房間數即為容量。
+ * 執行緒池使用預設設定：平台模式 game.room-executor.pool-size=32，虛擬模式 game.virtual-threads.concurrency=256。
+ * 虛擬執行緒需要 Java 21 執行（程式仍以 Java 17 編譯），執行方式同 ImageResizerBenchmark，主類改為
+ * com.bluffmaster.benchmark.RoomCapacityLoadRunner
+ */
+public final class RoomCapacityLoadRunner {
+
+    private static final long IO_MILLIS = 20;
+    private static final long COMMAND_INTERVAL_MILLIS = 1000;
+    private static final long RUN_MILLIS = 6000;
+    private static final long WARMUP_MILLIS = 2000;
+    private static final long P99_BUDGET_MILLIS = 250;
+    private static final List<Integer> ROOM_COUNTS = List.of(100, 200, 400, 800, 1600, 3200, 6400, 12800, 25600);
+
+    private RoomCapacityLoadRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("Java %s%n", Runtime.version());
+        for (boolean virtual : new boolean[]{false, true}) {
+            VirtualThreadSupport support = virtualThreadSupport(virtual);
+            if (virtual && !support.isEnabled()) {
+                System.out.println("virtual: 需要 Java 21 以上，略過");
+                continue;
+            }
+            String mode = virtual ? "virtual" : "platform";
+            int capacity = 0;
+            for (int rooms : ROOM_COUNTS) {
+                long[] latencies = run(support, rooms);
+                long p50 = percentile(latencies, 0.50);
+                long p99 = percentile(latencies, 0.99);
+                System.out.printf("%-8s rooms=%5d commands=%6d p50=%5dms p99=%5dms%n",
+                        mode, rooms, latencies.length, p50, p99);
+                if (p99 > P99_BUDGET_MILLIS) {
+                    break;
+                }
+                capacity = rooms;
+            }
+            System.out.printf("%-8s capacity (p99 <= %dms): %d rooms%n", mode, P99_BUDGET_MILLIS, capacity);
+        }
+    }
+
+    private static long[] run(VirtualThreadSupport support, int rooms) throws InterruptedException {
+        RoomCommandExecutor executor = new RoomCommandExecutor(null, support, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(executor, "poolSize", 32);
+        ReflectionTestUtils.setField(executor, "maxBatch", 16);
+        executor.init();
+
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        long measureFrom = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WARMUP_MILLIS);
+        ScheduledExecutorService clients = Executors.newScheduledThreadPool(4);
+        for (int i = 0; i < rooms; i++) {
+            String roomId = "room-" + i;
+            long initialDelay = ThreadLocalRandom.current().nextLong(COMMAND_INTERVAL_MILLIS);
+            clients.scheduleAtFixedRate(() -> {
+                long submittedAt = System.nanoTime();
+                executor.submit(roomId, () -> {
+                    sleep(IO_MILLIS);
+                    if (submittedAt >= measureFrom) {
+                        latencies.add(System.nanoTime() - submittedAt);
+                    }
+                });
+            }, initialDelay, COMMAND_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        Thread.sleep(WARMUP_MILLIS + RUN_MILLIS);
+        clients.shutdownNow();
+        executor.shutdown();
+        return latencies.stream()
+                .mapToLong(TimeUnit.NANOSECONDS::toMillis)
+                .sorted()
+                .toArray();
+    }
+
+    private static VirtualThreadSupport virtualThreadSupport(boolean enabled) {
+        VirtualThreadSupport support = new VirtualThreadSupport();
+        ReflectionTestUtils.setField(support, "requested", enabled);
+        ReflectionTestUtils.setField(support, "concurrency", 256);
+        support.init();
+        return support;
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return Long.MAX_VALUE;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * percentile) - 1)];
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.bluffmaster.benchmark;
+
+import com.bluffmaster.state.Ballot;
+import com.bluffmaster.state.LocalVoteBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 單一回合的投票吞吐量（votes/s）：9 位玩家同時向投票緩衝區（LocalVoteBuffer）投票，包括選票驗證
+ * 執行方式同 ImageResizerBenchmark，主類改為 com.bluffmaster.benchmark.VoteBufferBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(VoteBufferBenchmark.VOTERS)
+public class VoteBufferBenchmark {
+
+    static final int VOTERS = 9;
+    private static final String ROUND_ID = "round-1";
+    private static final List<String> OPTIONS = List.of(
+            "/api/images/a.jpg", "/api/images/b.jpg", "/api/images/c.jpg", "/api/images/fake.jpg");
+
+    private final LocalVoteBuffer voteBuffer = new LocalVoteBuffer();
+    private final AtomicInteger voterSequence = new AtomicInteger();
+
+    @Setup
+    public void setUp() {
+        Set<String> voterIds = new HashSet<>();
+        for (int i = 0; i < VOTERS; i++) {
+            voterIds.add("p" + i);
+        }
+        voteBuffer.open(new Ballot(ROUND_ID, "room-1", "speaker",
+                Set.of("/api/images/s1.jpg"), Set.copyOf(OPTIONS), Set.copyOf(voterIds)));
+    }
+
+    @State(Scope.Thread)
+    public static class Voter {
+        private String playerId;
+        private int choice;
+
+        @Setup
+        public void setUp(VoteBufferBenchmark benchmark) {
+            playerId = "p" + benchmark.voterSequence.getAndIncrement() % VOTERS;
+        }
+
+        String nextImage() {
+            choice = (choice + 1) % OPTIONS.size();
+            return OPTIONS.get(choice);
+        }
+    }
+
+    @Benchmark
+    public boolean voteBuffer(Voter voter) {
+        return voteBuffer.offer(ROUND_ID, voter.playerId, voter.nextImage());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(VoteBufferBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
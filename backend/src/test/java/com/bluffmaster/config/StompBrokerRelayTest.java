@@ -0,0 +1,122 @@
+package com.bluffmaster.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.MimeTypeUtils;
+
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * 經由 STOMP broker relay 與內嵌 Artemis 的來回：客戶端訂閱 /topic 後，伺服器發布的訊息送回該連線
+ */
+class StompBrokerRelayTest {
+
+    private static final String SESSION_ID = "session-1";
+    private static final String DESTINATION = "/topic/room.room-1";
+
+    private final BlockingQueue<Message<?>> clientMessages = new LinkedBlockingQueue<>();
+
+    private EmbeddedStompBroker broker;
+    private StompBrokerRelayMessageHandler relay;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        broker = new EmbeddedStompBroker();
+        ReflectionTestUtils.setField(broker, "host", "127.0.0.1");
+        ReflectionTestUtils.setField(broker, "port", port);
+        broker.start();
+
+        // 沒有 executor 的通道在呼叫的執行緒上直接交給訂閱者
+        ExecutorSubscribableChannel clientOutboundChannel = new ExecutorSubscribableChannel();
+        clientOutboundChannel.subscribe(clientMessages::add);
+        relay = new StompBrokerRelayMessageHandler(new ExecutorSubscribableChannel(), clientOutboundChannel,
+                new ExecutorSubscribableChannel(), List.of("/topic", "/queue"));
+        relay.setRelayHost("127.0.0.1");
+        relay.setRelayPort(port);
+        relay.setClientLogin("guest");
+        relay.setClientPasscode("guest");
+        relay.setSystemLogin("guest");
+        relay.setSystemPasscode("guest");
+        relay.start();
+        await().atMost(Duration.ofSeconds(30)).until(relay::isBrokerAvailable);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        relay.stop();
+        broker.stop();
+    }
+
+    @Test
+    void publishedMessageReachesSubscribedClient() throws Exception {
+        StompHeaderAccessor connect = StompHeaderAccessor.create(StompCommand.CONNECT);
+        connect.setSessionId(SESSION_ID);
+        connect.setAcceptVersion("1.2");
+        connect.setHeartbeat(0, 0);
+        relay.handleMessage(message(connect, new byte[0]));
+        assertThat(frame(nextClientMessage()).getCommand()).isEqualTo(StompCommand.CONNECTED);
+
+        // 等待訂閱回執，確保訊息代理已登記訂閱後才發布
+        StompHeaderAccessor subscribe = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        subscribe.setSessionId(SESSION_ID);
+        subscribe.setSubscriptionId("sub-0");
+        subscribe.setDestination(DESTINATION);
+        subscribe.setReceipt("subscribed");
+        relay.handleMessage(message(subscribe, new byte[0]));
+        StompHeaderAccessor receipt = frame(nextClientMessage());
+        assertThat(receipt.getCommand()).isEqualTo(StompCommand.RECEIPT);
+        assertThat(receipt.getReceiptId()).isEqualTo("subscribed");
+
+        // 沒有 session id 的訊息由 relay 的系統連線發布，與 SimpMessagingTemplate 的廣播相同
+        StompHeaderAccessor send = StompHeaderAccessor.create(StompCommand.SEND);
+        send.setDestination(DESTINATION);
+        send.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        relay.handleMessage(message(send, "{\"version\":1}".getBytes(StandardCharsets.UTF_8)));
+
+        Message<?> message = nextClientMessage();
+        StompHeaderAccessor delivered = frame(message);
+        assertThat(delivered.getCommand()).isEqualTo(StompCommand.MESSAGE);
+        assertThat(delivered.getMessageType()).isEqualTo(SimpMessageType.MESSAGE);
+        assertThat(delivered.getSessionId()).isEqualTo(SESSION_ID);
+        assertThat(delivered.getSubscriptionId()).isEqualTo("sub-0");
+        assertThat(delivered.getDestination()).isEqualTo(DESTINATION);
+        assertThat(new String((byte[]) message.getPayload(), StandardCharsets.UTF_8)).isEqualTo("{\"version\":1}");
+    }
+
+    private Message<?> nextClientMessage() throws InterruptedException {
+        Message<?> message = clientMessages.poll(30, TimeUnit.SECONDS);
+        assertThat(message).as("relay 沒有送回任何訊息").isNotNull();
+        return message;
+    }
+
+    private static StompHeaderAccessor frame(Message<?> message) {
+        return StompHeaderAccessor.wrap(message);
+    }
+
+    private static Message<byte[]> message(StompHeaderAccessor accessor, byte[] payload) {
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+}
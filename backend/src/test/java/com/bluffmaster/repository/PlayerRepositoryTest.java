@@ -0,0 +1,77 @@
+package com.bluffmaster.repository;
+
+import com.bluffmaster.model.Player;
+import com.bluffmaster.model.Room;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+class PlayerRepositoryTest {
+
+    private static final int PLAYERS = 4;
+
+    @Autowired
+    private PlayerRepository playerRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private String roomId;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        roomId = entityManager.persist(Room.builder()
+                .roomCode("ABC123")
+                .maxPlayers(PLAYERS)
+                .gameMode(Room.GameMode.NORMAL)
+                .totalRounds(PLAYERS)
+                .build()).getId();
+        for (int i = 0; i < PLAYERS; i++) {
+            entityManager.persist(Player.builder()
+                    .nickname("玩家" + i)
+                    .roomId(roomId)
+                    .isHost(i == 0)
+                    .imageUrls(new ArrayList<>(List.of("/api/images/" + i + "a.jpg", "/api/images/" + i + "b.jpg")))
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void loadsPlayersWithImagesInOneStatement() {
+        List<Player> players = playerRepository.findWithImagesByRoomId(roomId);
+
+        assertThat(players).hasSize(PLAYERS);
+        assertThat(players).allSatisfy(player -> assertThat(player.getImageUrls()).hasSize(2));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void lazyImageListsCostOneStatementPerPlayer() {
+        List<Player> players = playerRepository.findByRoomId(roomId);
+
+        assertThat(players).allSatisfy(player -> assertThat(player.getImageUrls()).hasSize(2));
+        // 沒有 EntityGraph 時每個玩家的圖片列表各需一次查詢（N+1）
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1 + PLAYERS);
+    }
+}
@@ -0,0 +1,109 @@
+package com.bluffmaster.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DecoyImagePoolTest {
+
+    private final ImageStore imageStore = mock(ImageStore.class);
+    private final ImageProcessingPool imageProcessingPool = mock(ImageProcessingPool.class);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile CompletableFuture<?> refill;
+    private DecoyImagePool pool;
+
+    @BeforeEach
+    void setUp() {
+        ImageDecoder imageDecoder = new ImageDecoder();
+        ReflectionTestUtils.setField(imageDecoder, "maxDecodePixels", 8_000_000L);
+        when(imageStore.storeNamed(anyString(), any()))
+                .thenAnswer(invocation -> "/api/images/" + invocation.getArgument(0));
+        // 背景載入等到測試放行才開始
+        when(imageProcessingPool.submit(any())).thenAnswer(invocation -> {
+            Supplier<?> task = invocation.getArgument(0);
+            refill = CompletableFuture.supplyAsync(() -> {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return task.get();
+            });
+            return refill;
+        });
+
+        pool = new DecoyImagePool(imageStore, imageProcessingPool, imageDecoder, new ImageResizer(),
+                mock(JpegEncoder.class), mock(ImageUrlResolver.class), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(pool, "poolSize", 32);
+        ReflectionTestUtils.setField(pool, "seed", 1L);
+        ReflectionTestUtils.setField(pool, "photos", "classpath:decoys/*.jpg");
+        pool.init();
+    }
+
+    @Test
+    void bundledPhotosSeedAPoolToppedUpToPoolSize() throws Exception {
+        warmUp();
+
+        List<String> decoys = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            decoys.add(pool.next());
+        }
+
+        // 一輪內沒有重複；5 張附帶的照片以內容雜湊命名，其餘為產生的假圖
+        assertThat(new HashSet<>(decoys)).hasSize(32);
+        assertThat(decoys).filteredOn(url -> url.matches("/api/images/decoy-[0-9a-f]{32}\\.jpg")).hasSize(5);
+        assertThat(decoys).filteredOn(url -> url.startsWith("/api/images/decoy-s1-")).hasSize(27);
+        // 打亂順序後照片不會集中在前幾個回合
+        assertThat(decoys.subList(0, 5)).anyMatch(url -> url.startsWith("/api/images/decoy-s1-"));
+    }
+
+    @Test
+    void poolIsGeneratedWhenThereAreNoPhotos() throws Exception {
+        ReflectionTestUtils.setField(pool, "photos", "classpath:missing/*.jpg");
+        ReflectionTestUtils.setField(pool, "poolSize", 4);
+        warmUp();
+
+        Set<String> decoys = new HashSet<>();
+        for (int i = 0; i < 8; i++) {
+            decoys.add(pool.next());
+        }
+        assertThat(decoys).containsExactlyInAnyOrder("/api/images/decoy-s1-0.jpg", "/api/images/decoy-s1-1.jpg",
+                "/api/images/decoy-s1-2.jpg", "/api/images/decoy-s1-3.jpg");
+    }
+
+    @Test
+    void nextFailsFastInsteadOfWaitingForWarmUp() throws Exception {
+        pool.warmUp();
+
+        long start = System.nanoTime();
+        assertThatThrownBy(pool::next).hasMessage("假圖尚未準備好，請稍後再試");
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1000);
+
+        release.countDown();
+        refill.get(10, TimeUnit.SECONDS);
+        assertThat(pool.next()).startsWith("/api/images/decoy-");
+    }
+
+    private void warmUp() throws Exception {
+        pool.warmUp();
+        release.countDown();
+        refill.get(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,66 @@
+package com.bluffmaster.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageDecoderTest {
+
+    private ImageDecoder imageDecoder;
+
+    @BeforeEach
+    void setUp() {
+        imageDecoder = new ImageDecoder();
+        ReflectionTestUtils.setField(imageDecoder, "maxDecodePixels", 8_000_000L);
+    }
+
+    @Test
+    void widthDrivesTheFactorForOrdinaryPhotos() {
+        assertThat(imageDecoder.subsamplingFactor(4000, 3000, 1080)).isEqualTo(3);
+        assertThat(imageDecoder.subsamplingFactor(8000, 6000, 1080)).isEqualTo(7);
+        assertThat(imageDecoder.subsamplingFactor(800, 600, 1080)).isEqualTo(1);
+    }
+
+    @Test
+    void pixelBudgetBoundsTallAndNarrowImages() {
+        int factor = imageDecoder.subsamplingFactor(1000, 40000, 1080);
+
+        assertThat(factor).isGreaterThan(1);
+        assertThat(decodedPixels(1000, 40000, factor)).isLessThanOrEqualTo(8_000_000L);
+        // 最小的倍數即可，不過度縮小
+        assertThat(decodedPixels(1000, 40000, factor - 1)).isGreaterThan(8_000_000L);
+    }
+
+    @Test
+    void pixelBudgetHoldsForExtremeDimensions() {
+        int factor = imageDecoder.subsamplingFactor(65535, 65535, 1080);
+
+        assertThat(decodedPixels(65535, 65535, factor)).isLessThanOrEqualTo(8_000_000L);
+    }
+
+    @Test
+    void decodesLongScreenshotWithinBudget() throws IOException {
+        ReflectionTestUtils.setField(imageDecoder, "maxDecodePixels", 100_000L);
+        BufferedImage screenshot = new BufferedImage(200, 8000, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(screenshot, "png", png);
+
+        ImageDecoder.DecodedImage decoded = imageDecoder.decode(new ByteArrayInputStream(png.toByteArray()), 1080);
+
+        assertThat(decoded.originalWidth()).isEqualTo(200);
+        assertThat(decoded.originalHeight()).isEqualTo(8000);
+        assertThat((long) decoded.image().getWidth() * decoded.image().getHeight()).isLessThanOrEqualTo(100_000L);
+    }
+
+    private static long decodedPixels(int width, int height, int factor) {
+        return (long) ((width + factor - 1) / factor) * ((height + factor - 1) / factor);
+    }
+}
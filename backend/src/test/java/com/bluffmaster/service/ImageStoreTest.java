@@ -0,0 +1,83 @@
+package com.bluffmaster.service;
+
+import com.bluffmaster.model.StoredImage;
+import com.bluffmaster.repository.StoredImageRepository;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.Storage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 最後一個引用釋放後刪除 GCS 上的原圖與版本；刪除前已重新上傳相同內容時保留版本
+ */
+class ImageStoreTest {
+
+    private static final String BUCKET = "bucket";
+    private static final String HASH = "ab".repeat(32);
+    private static final String URL = "https://storage.googleapis.com/" + BUCKET + "/" + HASH + ".jpg";
+
+    private final StoredImageRepository storedImageRepository = mock(StoredImageRepository.class);
+    private final Storage storage = mock(Storage.class);
+    private ImageStore imageStore;
+
+    @BeforeEach
+    void setUp() {
+        imageStore = new ImageStore(storedImageRepository, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                new SimpleMeterRegistry(), mock(HotImageCache.class));
+        ReflectionTestUtils.setField(imageStore, "storageType", "gcp");
+        ReflectionTestUtils.setField(imageStore, "bucketName", BUCKET);
+        ReflectionTestUtils.setField(imageStore, "storage", storage);
+        imageStore.init();
+    }
+
+    @Test
+    void variantsAreDeletedWithTheLastReference() {
+        when(storedImageRepository.findByIdForUpdate(HASH))
+                .thenReturn(Optional.of(storedImage(7L)))
+                .thenReturn(Optional.empty());
+
+        imageStore.release(URL);
+
+        verify(storage).delete(BlobId.of(BUCKET, HASH + ".jpg"), Storage.BlobSourceOption.generationMatch(7L));
+        for (ImageVariant variant : ImageVariant.values()) {
+            verify(storage).delete(BlobId.of(BUCKET, variant.fileNameOf(HASH)));
+        }
+    }
+
+    @Test
+    void variantsSurviveAReuploadBeforeTheDelete() {
+        // 釋放提交後、刪除前，相同內容已被重新上傳並登記為新的 generation
+        when(storedImageRepository.findByIdForUpdate(HASH))
+                .thenReturn(Optional.of(storedImage(7L)))
+                .thenReturn(Optional.of(storedImage(8L)));
+
+        imageStore.release(URL);
+
+        verify(storage).delete(BlobId.of(BUCKET, HASH + ".jpg"), Storage.BlobSourceOption.generationMatch(7L));
+        for (ImageVariant variant : ImageVariant.values()) {
+            verify(storage, never()).delete(BlobId.of(BUCKET, variant.fileNameOf(HASH)));
+        }
+        verify(storage, never()).delete(any(BlobId.class));
+    }
+
+    private static StoredImage storedImage(long generation) {
+        return StoredImage.builder()
+                .id(HASH)
+                .url(URL)
+                .refCount(1)
+                .blobGeneration(generation)
+                .build();
+    }
+}
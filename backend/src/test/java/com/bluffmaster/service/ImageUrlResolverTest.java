@@ -0,0 +1,188 @@
+package com.bluffmaster.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 以本機的 HTTP 替身伺服器驗證重新導向、快取時間、無效結果快取、同一 URL 共用請求與總時間上限
+ */
+class ImageUrlResolverTest {
+
+    private static final long TTL = 300;
+    private static final long NEGATIVE_TTL = 300;
+
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ExecutorService executor;
+    private HttpServer server;
+    private String baseUrl;
+    private ImageUrlResolver resolver;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/photo.jpg", exchange -> respond(exchange, 200, null));
+        server.createContext("/missing.jpg", exchange -> respond(exchange, 404, null));
+        server.createContext("/relative", exchange -> respond(exchange, 302, "/absolute"));
+        server.createContext("/absolute", exchange -> respond(exchange, 301, baseUrl + "/photo.jpg"));
+        server.createContext("/loop", exchange -> respond(exchange, 302, "/loop"));
+        server.createContext("/slow", exchange -> {
+            await(release);
+            respond(exchange, 200, null);
+        });
+        server.createContext("/crawl", exchange -> {
+            // 每一跳都在單次請求的 timeout 之內，但累計超過總時間上限
+            sleep(150);
+            respond(exchange, 302, "/crawl");
+        });
+        // 每個請求各用一條執行緒，阻塞中的請求不會擋住其他請求
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        resolver = new ImageUrlResolver(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(resolver, "ttl", TTL);
+        ReflectionTestUtils.setField(resolver, "negativeTtl", NEGATIVE_TTL);
+        ReflectionTestUtils.setField(resolver, "timeout", 2000L);
+        ReflectionTestUtils.setField(resolver, "maxRedirects", 5);
+        ReflectionTestUtils.setField(resolver, "deadline", 5000L);
+        resolver.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    void followsRelativeAndAbsoluteRedirectsToTheFinalUrl() {
+        assertThat(resolve("/relative")).contains(baseUrl + "/photo.jpg");
+        assertThat(requestCount("/relative")).isEqualTo(1);
+        assertThat(requestCount("/absolute")).isEqualTo(1);
+        assertThat(requestCount("/photo.jpg")).isEqualTo(1);
+    }
+
+    @Test
+    void tooManyRedirectsAreInvalid() {
+        assertThat(resolve("/loop")).isEmpty();
+        // 第一次請求加上 maxRedirects 次重新導向
+        assertThat(requestCount("/loop")).isEqualTo(6);
+    }
+
+    @Test
+    void validResultIsCachedUntilTtlExpires() throws Exception {
+        assertThat(resolve("/photo.jpg")).isPresent();
+        assertThat(resolve("/photo.jpg")).isPresent();
+        assertThat(requestCount("/photo.jpg")).isEqualTo(1);
+
+        Thread.sleep(TTL + 100);
+        assertThat(resolve("/photo.jpg")).isPresent();
+        assertThat(requestCount("/photo.jpg")).isEqualTo(2);
+    }
+
+    @Test
+    void invalidResultIsCachedForNegativeTtl() throws Exception {
+        assertThat(resolve("/missing.jpg")).isEmpty();
+        assertThat(resolve("/missing.jpg")).isEmpty();
+        assertThat(requestCount("/missing.jpg")).isEqualTo(1);
+
+        Thread.sleep(NEGATIVE_TTL + 100);
+        assertThat(resolve("/missing.jpg")).isEmpty();
+        assertThat(requestCount("/missing.jpg")).isEqualTo(2);
+    }
+
+    @Test
+    void concurrentCallersShareOneRequest() throws Exception {
+        List<CompletableFuture<Optional<String>>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(resolver.resolve(baseUrl + "/slow"));
+        }
+        assertThat(futures).allSatisfy(future -> assertThat(future).isNotDone());
+
+        release.countDown();
+        for (CompletableFuture<Optional<String>> future : futures) {
+            assertThat(future.get(10, TimeUnit.SECONDS)).contains(baseUrl + "/slow");
+        }
+        assertThat(requestCount("/slow")).isEqualTo(1);
+    }
+
+    @Test
+    void redirectChainIsBoundedByTheOverallDeadline() throws Exception {
+        ReflectionTestUtils.setField(resolver, "maxRedirects", 100);
+        ReflectionTestUtils.setField(resolver, "deadline", 500L);
+
+        long start = System.nanoTime();
+        Optional<String> result = resolver.resolve(baseUrl + "/crawl").get(10, TimeUnit.SECONDS);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(result).isEmpty();
+        assertThat(elapsed).isLessThan(2000);
+    }
+
+    @Test
+    void nonHttpUrlIsInvalidWithoutRequest() {
+        assertThat(resolver.resolve("ftp://example.com/a.jpg").join()).isEmpty();
+        assertThat(resolver.resolve(null).join()).isEmpty();
+        assertThat(requests).isEmpty();
+    }
+
+    private Optional<String> resolve(String path) {
+        return resolver.resolve(baseUrl + path).orTimeout(10, TimeUnit.SECONDS).join();
+    }
+
+    private int requestCount(String path) {
+        AtomicInteger count = requests.get(path);
+        return count == null ? 0 : count.get();
+    }
+
+    private void respond(HttpExchange exchange, int status, String location) throws IOException {
+        requests.computeIfAbsent(exchange.getRequestURI().getPath(), path -> new AtomicInteger()).incrementAndGet();
+        assertThat(exchange.getRequestMethod()).isEqualTo("HEAD");
+        if (location != null) {
+            exchange.getResponseHeaders().set("Location", location);
+        }
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.bluffmaster.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JpegEncoderTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private JpegEncoder jpegEncoder;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        jpegEncoder = new JpegEncoder(new ImageResizer(), meterRegistry);
+    }
+
+    @Test
+    void staysWithinBudgetInAtMostFourEncodes() throws IOException {
+        BufferedImage image = photoLike(1080, 1440);
+        long budget = 300_000;
+
+        byte[] jpeg = encodeWithinBudget(image, budget);
+
+        assertThat((long) jpeg.length).isLessThanOrEqualTo(budget);
+        assertThat(ImageIO.read(new ByteArrayInputStream(jpeg)).getWidth()).isEqualTo(1080);
+        assertThat(attempts().max()).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void shrinksUntilTheBudgetIsMet() throws IOException {
+        BufferedImage image = photoLike(1080, 1440);
+        long budget = 20_000;
+
+        byte[] jpeg = encodeWithinBudget(image, budget);
+
+        assertThat((long) jpeg.length).isLessThanOrEqualTo(budget);
+        assertThat(ImageIO.read(new ByteArrayInputStream(jpeg)).getWidth()).isLessThan(1080);
+    }
+
+    @Test
+    void generousBudgetKeepsTheHighestQuality() throws IOException {
+        BufferedImage image = photoLike(400, 300);
+
+        byte[] jpeg = encodeWithinBudget(image, 10_000_000);
+
+        assertThat(jpeg).isNotEmpty();
+        assertThat(attempts().max()).isLessThanOrEqualTo(4);
+    }
+
+    private byte[] encodeWithinBudget(BufferedImage image, long budget) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (MemoryCacheImageOutputStream output = new MemoryCacheImageOutputStream(bytes)) {
+            jpegEncoder.encodeWithinBudget(image, budget, output);
+        }
+        return bytes.toByteArray();
+    }
+
+    private DistributionSummary attempts() {
+        return meterRegistry.get("image.encode.attempts").summary();
+    }
+
+    /**
+     * 漸層加上雜訊：品質越高檔案越大，接近細節豐富的照片
+     */
+    private static BufferedImage photoLike(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(7);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int base = (x + y) * 255 / (width + height);
+                int r = clamp(base + random.nextInt(60) - 30);
+                int g = clamp(255 - base + random.nextInt(60) - 30);
+                int b = clamp(128 + random.nextInt(60) - 30);
+                image.setRGB(x, y, (r << 16) | (g << 8) | b);
+            }
+        }
+        return image;
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+}
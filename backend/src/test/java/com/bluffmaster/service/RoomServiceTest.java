@@ -0,0 +1,73 @@
+package com.bluffmaster.service;
+
+import com.bluffmaster.dto.RoomDTO;
+import com.bluffmaster.model.Player;
+import com.bluffmaster.model.Room;
+import com.bluffmaster.state.GameStateEngine;
+import com.bluffmaster.state.LocalRoomVersions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+@Import({RoomService.class, LocalRoomVersions.class})
+class RoomServiceTest {
+
+    @Autowired
+    private RoomService roomService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockBean
+    private ImageService imageService;
+
+    // 未載入遊戲狀態（inspect 返回 null），getRoom 走資料庫路徑
+    @MockBean
+    private GameStateEngine gameStateEngine;
+
+    @Test
+    void getRoomUsesTwoStatementsRegardlessOfPlayerCount() {
+        String roomId = entityManager.persist(Room.builder()
+                .roomCode("ABC123")
+                .maxPlayers(6)
+                .gameMode(Room.GameMode.NORMAL)
+                .totalRounds(6)
+                .build()).getId();
+        for (int i = 0; i < 6; i++) {
+            entityManager.persist(Player.builder()
+                    .nickname("玩家" + i)
+                    .roomId(roomId)
+                    .isHost(i == 0)
+                    .imageUrls(new ArrayList<>(List.of("/api/images/" + i + ".jpg")))
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        RoomDTO room = roomService.getRoom(roomId);
+
+        assertThat(room.getPlayers()).hasSize(6);
+        assertThat(room.getHostId()).isNotNull();
+        assertThat(room.getVersion()).isNotNull();
+        // 房間（共享鎖）與玩家連同圖片列表
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+}
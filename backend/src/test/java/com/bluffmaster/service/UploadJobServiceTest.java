@@ -0,0 +1,87 @@
+package com.bluffmaster.service;
+
+import com.bluffmaster.dto.UploadJobDTO;
+import com.bluffmaster.model.Player;
+import com.bluffmaster.state.LocalUploadJobStore;
+import com.bluffmaster.websocket.RoomBroadcaster;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UploadJobServiceTest {
+
+    private final ImageService imageService = mock(ImageService.class);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final Set<String> compressionThreads = ConcurrentHashMap.newKeySet();
+    private UploadJobService uploadJobService;
+
+    @BeforeEach
+    void setUp() {
+        when(imageService.checkUploadAllowed(anyString(), anyList()))
+                .thenReturn(Player.builder().id("p1").roomId("room-1").build());
+        when(imageService.processUploads(anyList(), any())).thenAnswer(invocation -> {
+            compressionThreads.add(Thread.currentThread().getName());
+            release.await(10, TimeUnit.SECONDS);
+            return CompletableFuture.completedFuture(List.of("/api/images/a.jpg"));
+        });
+        when(imageService.attachImages(anyString(), anyList())).thenAnswer(invocation -> invocation.getArgument(1));
+
+        uploadJobService = new UploadJobService(imageService, mock(RoomBroadcaster.class), new SimpleMeterRegistry(),
+                new LocalUploadJobStore());
+        ReflectionTestUtils.setField(uploadJobService, "jobWorkers", 1);
+        ReflectionTestUtils.setField(uploadJobService, "jobQueueCapacity", 1);
+        uploadJobService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        uploadJobService.shutdown();
+    }
+
+    @Test
+    void fullJobQueueRejectsInsteadOfCompressingOnTheRequestThread() throws Exception {
+        UploadJobDTO running = uploadJobService.submit("p1", List.of(photo()));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> !compressionThreads.isEmpty());
+        UploadJobDTO queued = uploadJobService.submit("p1", List.of(photo()));
+
+        UploadJobDTO rejected = uploadJobService.submit("p1", List.of(photo()));
+
+        assertThat(running.getStatus()).isEqualTo(UploadJobDTO.JobStatus.PROCESSING);
+        assertThat(queued.getStatus()).isEqualTo(UploadJobDTO.JobStatus.PROCESSING);
+        assertThat(rejected.getStatus()).isEqualTo(UploadJobDTO.JobStatus.FAILED);
+        assertThat(rejected.getError()).isEqualTo("上傳人數過多，請稍後重試");
+
+        release.countDown();
+        await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> {
+            assertThat(uploadJobService.getJob(running.getJobId())).get()
+                    .extracting(UploadJobDTO::getStatus).isEqualTo(UploadJobDTO.JobStatus.COMPLETED);
+            assertThat(uploadJobService.getJob(queued.getJobId())).get()
+                    .extracting(UploadJobDTO::getStatus).isEqualTo(UploadJobDTO.JobStatus.COMPLETED);
+        });
+        // 壓縮只在任務執行緒上進行
+        assertThat(compressionThreads).allMatch(name -> name.startsWith("upload-job-"));
+    }
+
+    private static MockMultipartFile photo() {
+        return new MockMultipartFile("files", "a.jpg", "image/jpeg", new byte[]{1, 2, 3});
+    }
+}
@@ -0,0 +1,159 @@
+package com.bluffmaster.state;
+
+import com.bluffmaster.model.GameRound;
+import com.bluffmaster.model.Player;
+import com.bluffmaster.model.Room;
+import com.bluffmaster.repository.GameRoundRepository;
+import com.bluffmaster.repository.PlayerRepository;
+import com.bluffmaster.repository.RoomRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GameStateEngineTest {
+
+    private static final String ROOM_ID = "room-1";
+
+    private final RoomRepository roomRepository = mock(RoomRepository.class);
+    private final PlayerRepository playerRepository = mock(PlayerRepository.class);
+    private final GameRoundRepository gameRoundRepository = mock(GameRoundRepository.class);
+    // 每次 save 時的回合內容（副本），依寫入順序
+    private final List<GameRound> savedRounds = new ArrayList<>();
+    private final AtomicBoolean failWrites = new AtomicBoolean();
+    private GameStateEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        when(roomRepository.findById(ROOM_ID)).thenReturn(Optional.of(room()));
+        when(playerRepository.findWithImagesByRoomId(ROOM_ID)).thenReturn(List.of(player()));
+        when(gameRoundRepository.findByRoomIdAndIsFinishedFalse(ROOM_ID)).thenReturn(Optional.of(round("round-1", 1)));
+        when(gameRoundRepository.save(any(GameRound.class))).thenAnswer(invocation -> {
+            if (failWrites.get()) {
+                throw new IllegalStateException("資料庫無法連線");
+            }
+            savedRounds.add(EntityCopies.copy(invocation.<GameRound>getArgument(0)));
+            return invocation.getArgument(0);
+        });
+
+        engine = new GameStateEngine(roomRepository, playerRepository, gameRoundRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), new LocalRoomStateStore());
+        ReflectionTestUtils.setField(engine, "flushBatchSize", 50);
+    }
+
+    @Test
+    void finishedRoundIsWrittenWhenTheNextRoundStartsBeforeFlush() {
+        finishCurrentRound();
+        startRound("round-2", 2);
+
+        engine.flush();
+
+        assertThat(savedRounds).extracting(GameRound::getId).containsExactly("round-1");
+        assertThat(savedRounds.get(0).getIsFinished()).isTrue();
+        assertThat(engine.read(ROOM_ID, RoomState::isDirty)).isFalse();
+    }
+
+    @Test
+    void replacedRoundSurvivesAFailedFlush() {
+        finishCurrentRound();
+        failWrites.set(true);
+        engine.flush();
+
+        // 寫回失敗後才開始下一回合，舊回合已不是當前回合
+        startRound("round-2", 2);
+        engine.execute(ROOM_ID, state -> {
+            state.getCurrentRound().setPhase(GameRound.RoundPhase.VOTING);
+            state.markRoundDirty();
+            return null;
+        });
+        failWrites.set(false);
+        engine.flush();
+
+        assertThat(savedRounds).extracting(GameRound::getId).containsExactly("round-1", "round-2");
+        assertThat(savedRounds.get(0).getIsFinished()).isTrue();
+        assertThat(savedRounds.get(1).getPhase()).isEqualTo(GameRound.RoundPhase.VOTING);
+        assertThat(engine.read(ROOM_ID, RoomState::isDirty)).isFalse();
+    }
+
+    @Test
+    void unmodifiedRoundIsNotWrittenWhenReplaced() {
+        startRound("round-2", 2);
+
+        engine.flush();
+
+        assertThat(savedRounds).isEmpty();
+    }
+
+    private void finishCurrentRound() {
+        engine.execute(ROOM_ID, state -> {
+            GameRound round = state.getCurrentRound();
+            round.setPhase(GameRound.RoundPhase.FINISHED);
+            round.setIsFinished(true);
+            round.setFinishedAt(LocalDateTime.now());
+            state.markRoundDirty();
+            return null;
+        });
+    }
+
+    private void startRound(String roundId, int roundNumber) {
+        engine.execute(ROOM_ID, state -> {
+            engine.attachRound(state, round(roundId, roundNumber));
+            return null;
+        });
+    }
+
+    private static Room room() {
+        return Room.builder()
+                .id(ROOM_ID)
+                .roomCode("ABC123")
+                .maxPlayers(10)
+                .gameMode(Room.GameMode.NORMAL)
+                .status(Room.RoomStatus.PLAYING)
+                .playerIds(new ArrayList<>(List.of("p1")))
+                .currentRound(1)
+                .totalRounds(3)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static Player player() {
+        return Player.builder()
+                .id("p1")
+                .nickname("玩家一")
+                .roomId(ROOM_ID)
+                .isHost(true)
+                .isReady(true)
+                .score(0)
+                .imageUrls(new ArrayList<>())
+                .isOnline(true)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static GameRound round(String roundId, int roundNumber) {
+        return GameRound.builder()
+                .id(roundId)
+                .roomId(ROOM_ID)
+                .roundNumber(roundNumber)
+                .speakerId("p1")
+                .imageUrls(new ArrayList<>())
+                .phase(GameRound.RoundPhase.STORY_TELLING)
+                .isFinished(false)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
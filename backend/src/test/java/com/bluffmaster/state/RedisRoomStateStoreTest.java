@@ -0,0 +1,160 @@
+package com.bluffmaster.state;
+
+import com.bluffmaster.model.Player;
+import com.bluffmaster.model.Room;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RedisRoomStateStoreTest {
+
+    private static final String ROOM_ID = "room-1";
+
+    private RedisStandIn redis;
+    private RedisRoomStateStore store;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        redis = RedisStandIn.start();
+        store = newStore();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        redis.close();
+    }
+
+    @Test
+    void loadsOnceAndSharesStateBetweenNodes() {
+        AtomicInteger loads = new AtomicInteger();
+        store.execute(ROOM_ID, () -> {
+            loads.incrementAndGet();
+            return newState();
+        }, state -> {
+            state.getPlayer("p1").setScore(3);
+            state.markPlayerDirty("p1");
+            return null;
+        });
+
+        // 另一個節點直接讀到寫入 Redis 的狀態，不再調用 loader
+        RedisRoomStateStore otherNode = newStore();
+        Integer score = otherNode.execute(ROOM_ID, () -> {
+            loads.incrementAndGet();
+            return newState();
+        }, state -> state.getPlayer("p1").getScore());
+
+        assertThat(score).isEqualTo(3);
+        assertThat(loads).hasValue(1);
+        assertThat(otherNode.flushCandidates()).containsExactly(ROOM_ID);
+    }
+
+    @Test
+    void unmodifiedStateIsNotWrittenBack() {
+        store.execute(ROOM_ID, () -> null, state -> null);
+
+        assertThat(store.read(ROOM_ID, (RoomState state) -> state != null)).isFalse();
+    }
+
+    @Test
+    void removedStateIsNotWrittenBack() {
+        store.execute(ROOM_ID, this::newState, state -> {
+            state.markRoomDirty();
+            return null;
+        });
+        store.execute(ROOM_ID, this::newState, state -> {
+            state.markRoomDirty();
+            store.remove(ROOM_ID);
+            return null;
+        });
+
+        assertThat(store.read(ROOM_ID, (RoomState state) -> state != null)).isFalse();
+        assertThat(store.flushCandidates()).isEmpty();
+    }
+
+    @Test
+    void commandsOnTheSameRoomAreMutuallyExclusiveAcrossNodes() throws Exception {
+        store.execute(ROOM_ID, this::newState, state -> {
+            state.markRoomDirty();
+            return null;
+        });
+        List<RedisRoomStateStore> nodes = List.of(store, newStore(), newStore());
+        int increments = 30;
+
+        ExecutorService executor = Executors.newFixedThreadPool(nodes.size() * 2);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < nodes.size() * 2; i++) {
+            RedisRoomStateStore node = nodes.get(i % nodes.size());
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int n = 0; n < increments; n++) {
+                    // 讀取、修改、寫回之間沒有鎖時會遺失更新
+                    node.execute(ROOM_ID, () -> null, state -> {
+                        Player player = state.getPlayer("p1");
+                        player.setScore(player.getScore() + 1);
+                        state.markPlayerDirty("p1");
+                        return null;
+                    });
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        int score = store.read(ROOM_ID, state -> state.getPlayer("p1").getScore());
+        assertThat(score).isEqualTo(nodes.size() * 2 * increments);
+    }
+
+    private RedisRoomStateStore newStore() {
+        RedisRoomStateStore node = new RedisRoomStateStore(redis.template(), RedisStandIn.objectMapper());
+        ReflectionTestUtils.setField(node, "lockTimeoutMillis", 5000L);
+        ReflectionTestUtils.setField(node, "lockWaitMillis", 30000L);
+        ReflectionTestUtils.setField(node, "roomTimeoutSeconds", 600L);
+        return node;
+    }
+
+    private RoomState newState() {
+        Room room = Room.builder()
+                .id(ROOM_ID)
+                .roomCode("ABC123")
+                .maxPlayers(10)
+                .gameMode(Room.GameMode.NORMAL)
+                .status(Room.RoomStatus.PLAYING)
+                .playerIds(new ArrayList<>(List.of("p1")))
+                .currentRound(0)
+                .totalRounds(1)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+        Player player = Player.builder()
+                .id("p1")
+                .nickname("玩家一")
+                .roomId(ROOM_ID)
+                .isHost(true)
+                .isReady(true)
+                .score(0)
+                .imageUrls(new ArrayList<>())
+                .isOnline(true)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+        return new RoomState(room, List.of(player), null);
+    }
+}
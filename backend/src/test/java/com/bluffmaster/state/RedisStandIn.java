@@ -0,0 +1,50 @@
+package com.bluffmaster.state;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fppt.jedismock.RedisServer;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+
+/**
+ * 測試用的 Redis 替身：記憶體中的 RESP 伺服器（支援 Lua 腳本），以與正式環境相同的 Lettuce 連線
+ */
+final class RedisStandIn implements AutoCloseable {
+
+    private final RedisServer server;
+    private final LettuceConnectionFactory connectionFactory;
+    private final StringRedisTemplate template;
+
+    private RedisStandIn(RedisServer server, LettuceConnectionFactory connectionFactory) {
+        this.server = server;
+        this.connectionFactory = connectionFactory;
+        this.template = new StringRedisTemplate(connectionFactory);
+    }
+
+    static RedisStandIn start() throws IOException {
+        RedisServer server = RedisServer.newRedisServer().start();
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(server.getHost(), server.getBindPort()));
+        connectionFactory.afterPropertiesSet();
+        return new RedisStandIn(server, connectionFactory);
+    }
+
+    StringRedisTemplate template() {
+        return template;
+    }
+
+    /**
+     * 與 Spring Boot 自動設定相同，可序列化 LocalDateTime
+     */
+    static ObjectMapper objectMapper() {
+        return new ObjectMapper().findAndRegisterModules();
+    }
+
+    @Override
+    public void close() throws IOException {
+        connectionFactory.destroy();
+        server.stop();
+    }
+}
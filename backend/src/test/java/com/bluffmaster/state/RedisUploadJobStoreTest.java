@@ -0,0 +1,75 @@
+package com.bluffmaster.state;
+
+import com.bluffmaster.dto.UploadJobDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RedisUploadJobStoreTest {
+
+    private static final String JOB_ID = "job-1";
+
+    private RedisStandIn redis;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        redis = RedisStandIn.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        redis.close();
+    }
+
+    @Test
+    void jobSavedOnOneNodeIsVisibleOnAnother() {
+        RedisUploadJobStore node = newStore();
+        RedisUploadJobStore otherNode = newStore();
+
+        node.save(job(UploadJobDTO.JobStatus.PROCESSING, List.of("/api/images/a.jpg")));
+        assertThat(otherNode.find(JOB_ID)).get()
+                .extracting(UploadJobDTO::getStatus, UploadJobDTO::getCompletedFiles)
+                .containsExactly(UploadJobDTO.JobStatus.PROCESSING, 1);
+
+        node.save(job(UploadJobDTO.JobStatus.COMPLETED, List.of("/api/images/a.jpg", "/api/images/b.jpg")));
+        assertThat(otherNode.find(JOB_ID)).get()
+                .extracting(UploadJobDTO::getStatus, UploadJobDTO::getImageUrls)
+                .containsExactly(UploadJobDTO.JobStatus.COMPLETED, List.of("/api/images/a.jpg", "/api/images/b.jpg"));
+        assertThat(otherNode.find("job-2")).isEmpty();
+    }
+
+    @Test
+    void finishedJobExpiresAfterRetention() {
+        RedisUploadJobStore node = newStore();
+
+        node.save(job(UploadJobDTO.JobStatus.PROCESSING, List.of()));
+        assertThat(redis.template().getExpire("bluffmaster:upload-job:" + JOB_ID)).isEqualTo(600L);
+
+        node.save(job(UploadJobDTO.JobStatus.FAILED, List.of()));
+        assertThat(redis.template().getExpire("bluffmaster:upload-job:" + JOB_ID)).isBetween(1L, 60L);
+    }
+
+    private RedisUploadJobStore newStore() {
+        RedisUploadJobStore store = new RedisUploadJobStore(redis.template(), RedisStandIn.objectMapper());
+        ReflectionTestUtils.setField(store, "roomTimeoutSeconds", 600L);
+        ReflectionTestUtils.setField(store, "jobRetention", 60000L);
+        return store;
+    }
+
+    private static UploadJobDTO job(UploadJobDTO.JobStatus status, List<String> imageUrls) {
+        return UploadJobDTO.builder()
+                .jobId(JOB_ID)
+                .playerId("p1")
+                .roomId("room-1")
+                .status(status)
+                .totalFiles(2)
+                .completedFiles(status == UploadJobDTO.JobStatus.COMPLETED ? 2 : imageUrls.size())
+                .imageUrls(imageUrls)
+                .build();
+    }
+}
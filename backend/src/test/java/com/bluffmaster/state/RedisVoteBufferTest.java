@@ -0,0 +1,116 @@
+package com.bluffmaster.state;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RedisVoteBufferTest {
+
+    private static final String ROUND_ID = "round-1";
+
+    private RedisStandIn redis;
+    private RedisVoteBuffer buffer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        redis = RedisStandIn.start();
+        buffer = newBuffer();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        redis.close();
+    }
+
+    @Test
+    void votesOfferedOnAnyNodeAreClosedTogether() {
+        buffer.open(ballot(List.of("speaker", "p1", "p2")));
+        // 另一個節點沒有開啟過投票表，從 Redis 讀取選票規則
+        RedisVoteBuffer otherNode = newBuffer();
+
+        assertThat(buffer.offer(ROUND_ID, "speaker", "/api/images/s1.jpg")).isTrue();
+        assertThat(otherNode.offer(ROUND_ID, "p1", "/api/images/a.jpg")).isTrue();
+        assertThat(otherNode.offer(ROUND_ID, "p1", "/api/images/b.jpg")).isTrue();
+        assertThat(buffer.peek(ROUND_ID)).hasSize(2);
+
+        Map<String, String> votes = otherNode.close(ROUND_ID);
+
+        assertThat(votes).containsExactlyInAnyOrderEntriesOf(Map.of(
+                "speaker", "/api/images/s1.jpg",
+                "p1", "/api/images/b.jpg"));
+        // 關閉後任何節點都不能再投票
+        assertThat(buffer.offer(ROUND_ID, "p2", "/api/images/a.jpg")).isFalse();
+        assertThat(buffer.close(ROUND_ID)).isEmpty();
+    }
+
+    @Test
+    void invalidVotesAreRejected() {
+        buffer.open(ballot(List.of("speaker", "p1")));
+
+        assertThatThrownBy(() -> buffer.offer(ROUND_ID, "stranger", "/api/images/a.jpg"))
+                .hasMessage("玩家不在該房間");
+        assertThatThrownBy(() -> buffer.offer(ROUND_ID, "p1", "/api/images/other.jpg"))
+                .hasMessage("無效的圖片選項");
+        assertThatThrownBy(() -> buffer.offer(ROUND_ID, "speaker", "/api/images/a.jpg"))
+                .hasMessage("無效的圖片選項");
+        assertThat(buffer.peek(ROUND_ID)).isEmpty();
+    }
+
+    @Test
+    void unknownRoundIsNotAccepted() {
+        assertThat(buffer.offer("missing", "p1", "/api/images/a.jpg")).isFalse();
+    }
+
+    @Test
+    void concurrentVotesFromSeveralNodesAreAllRecorded() throws Exception {
+        List<String> voters = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            voters.add("p" + i);
+        }
+        buffer.open(ballot(voters));
+        List<RedisVoteBuffer> nodes = List.of(buffer, newBuffer(), newBuffer());
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < voters.size(); i++) {
+            RedisVoteBuffer node = nodes.get(i % nodes.size());
+            String voter = voters.get(i);
+            futures.add(executor.submit(() -> node.offer(ROUND_ID, voter, "/api/images/a.jpg")));
+        }
+        for (Future<Boolean> future : futures) {
+            assertThat(future.get(30, TimeUnit.SECONDS)).isTrue();
+        }
+        executor.shutdown();
+
+        assertThat(buffer.close(ROUND_ID)).containsOnlyKeys(voters);
+    }
+
+    private RedisVoteBuffer newBuffer() {
+        RedisVoteBuffer node = new RedisVoteBuffer(redis.template(), RedisStandIn.objectMapper());
+        ReflectionTestUtils.setField(node, "roomTimeoutSeconds", 600L);
+        return node;
+    }
+
+    private static Ballot ballot(List<String> voterIds) {
+        Set<String> voters = new HashSet<>(voterIds);
+        voters.add("speaker");
+        return new Ballot(ROUND_ID, "room-1", "speaker",
+                Set.of("/api/images/s1.jpg", "/api/images/s2.jpg"),
+                Set.of("/api/images/a.jpg", "/api/images/b.jpg", "/api/images/s1.jpg", "/api/images/fake.jpg"),
+                Set.copyOf(voters));
+    }
+}
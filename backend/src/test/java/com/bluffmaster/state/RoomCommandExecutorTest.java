@@ -0,0 +1,106 @@
+package com.bluffmaster.state;
+
+import com.bluffmaster.config.VirtualThreadSupport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RoomCommandExecutorTest {
+
+    private final GameStateEngine gameStateEngine = mock(GameStateEngine.class);
+    private RoomCommandExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new RoomCommandExecutor(gameStateEngine, new VirtualThreadSupport(), new SimpleMeterRegistry());
+        // 單一執行緒，讓忙碌的信箱是否讓出執行緒可以觀察
+        ReflectionTestUtils.setField(executor, "poolSize", 1);
+        ReflectionTestUtils.setField(executor, "maxBatch", 2);
+        executor.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void busyMailboxYieldsItsWorkerToOtherRooms() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> executed = Collections.synchronizedList(new ArrayList<>());
+        executor.submit("room-a", () -> awaitRelease(release));
+        for (int i = 0; i < 6; i++) {
+            int index = i;
+            executor.submit("room-a", () -> executed.add("a" + index));
+        }
+        executor.submit("room-b", () -> executed.add("b"));
+
+        release.countDown();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> executed.size() == 7);
+
+        // room-a 每次最多執行 2 個命令後重新排隊，room-b 不必等到 room-a 全部執行完
+        assertThat(executed.indexOf("b")).isLessThan(executed.indexOf("a5"));
+        assertThat(executed.stream().filter(name -> name.startsWith("a")).toList())
+                .containsExactly("a0", "a1", "a2", "a3", "a4", "a5");
+    }
+
+    @Test
+    void idleMailboxIsRemovedAndLaterCommandsStaySerial() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger done = new AtomicInteger();
+        Runnable command = () -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            running.decrementAndGet();
+            done.incrementAndGet();
+        };
+
+        executor.submit("room-a", command);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> mailboxes().isEmpty());
+        for (int i = 0; i < 50; i++) {
+            executor.submit("room-a", command);
+        }
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> done.get() == 51 && mailboxes().isEmpty());
+        assertThat(maxRunning).hasValue(1);
+    }
+
+    @Test
+    void unknownRoundCommandDoesNotRunOnTheCallerThread() {
+        when(gameStateEngine.findRoomIdOfRound("missing")).thenReturn(null);
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+
+        executor.submitForRound("missing", () -> threads.add(Thread.currentThread().getName()));
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> !threads.isEmpty());
+        assertThat(threads).allMatch(name -> name.startsWith("room-"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, ?> mailboxes() {
+        return (Map<String, ?>) ReflectionTestUtils.getField(executor, "mailboxes");
+    }
+
+    private static void awaitRelease(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
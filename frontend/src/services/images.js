@@ -0,0 +1,17 @@
+// 上傳的圖片以內容雜湊命名（{hash}.jpg），伺服器同時產生較小的版本：
+// {hash}-thumb.jpg（縮圖）與 {hash}-medium.jpg（中等尺寸）
+const CONTENT_HASH_IMAGE = /\/[0-9a-f]{64}\.jpg$/
+
+export function imageVariant(url, variant) {
+  if (!url || !CONTENT_HASH_IMAGE.test(url)) {
+    return url
+  }
+  return url.replace(/\.jpg$/, `-${variant}.jpg`)
+}
+
+// 版本不存在時（例如雲端儲存上的舊圖片）改用原圖
+export function fallbackToOriginal(event, url) {
+  if (event.target.getAttribute('src') !== url) {
+    event.target.setAttribute('src', url)
+  }
+}
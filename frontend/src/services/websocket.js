@@ -77,6 +77,12 @@ async function connect(roomId, playerId, callbacks) {
             }
           );
 
+          // 訂閱圖片上傳任務進度
+          stompClient.subscribe(`/topic/room/${roomId}/upload`, (message) => {
+            const job = JSON.parse(message.body);
+            callbacks.onUploadProgress?.(job);
+          });
+
           // 連接成功後 resolve
           resolve(stompClient);
         },
@@ -9,6 +9,8 @@ export const useGameStore = defineStore("game", () => {
   const currentRound = ref(null);
   const connection = ref(null);
   const isRestoringPlayer = ref(false); // 標記是否正在從 session 恢復玩家身份
+  const uploadProgress = ref(null); // 進行中的上傳任務進度 { completedFiles, totalFiles }
+  const uploadJobs = new Map(); // jobId -> { resolve, reject } 或先於回應到達的最終結果
 
   const isHost = computed(() => {
     return currentPlayer.value?.isHost || false;
@@ -199,8 +201,24 @@ export const useGameStore = defineStore("game", () => {
     files.forEach((file) => {
       formData.append("files", file);
     });
+
+    // 已連接 WebSocket 時使用非同步上傳，壓縮結果由 /topic/room/{roomId}/upload 推送
+    if (!connection.value) {
+      const response = await api.post(
+        `/images/players/${currentPlayer.value.id}/upload`,
+        formData,
+        {
+          headers: {
+            "Content-Type": "multipart/form-data",
+          },
+        }
+      );
+      addUploadedImages(response.data);
+      return response.data;
+    }
+
     const response = await api.post(
-      `/images/players/${currentPlayer.value.id}/upload`,
+      `/images/players/${currentPlayer.value.id}/upload-jobs`,
       formData,
       {
         headers: {
@@ -208,11 +226,85 @@ export const useGameStore = defineStore("game", () => {
         },
       }
     );
+    const job = response.data;
+    uploadProgress.value = {
+      completedFiles: job.completedFiles,
+      totalFiles: job.totalFiles,
+    };
+    try {
+      const finished = await waitForUploadJob(job.jobId);
+      addUploadedImages(finished.imageUrls);
+      return finished.imageUrls;
+    } finally {
+      uploadProgress.value = null;
+    }
+  }
+
+  function waitForUploadJob(jobId) {
+    const early = uploadJobs.get(jobId);
+    if (early?.status) {
+      // 最終結果比 HTTP 回應先到達
+      uploadJobs.delete(jobId);
+      return early.status === "COMPLETED"
+        ? Promise.resolve(early)
+        : Promise.reject(new Error(early.error || "上傳失敗"));
+    }
+    return new Promise((resolve, reject) => {
+      // WebSocket 訊息遺失時以輪詢任務狀態作為後備
+      const timer = setInterval(async () => {
+        try {
+          const response = await api.get(`/images/jobs/${jobId}`);
+          if (response.data.status !== "PROCESSING") {
+            handleUploadProgress(response.data);
+          }
+        } catch (error) {
+          console.warn("查詢上傳任務狀態失敗:", error);
+        }
+      }, 5000);
+      uploadJobs.set(jobId, {
+        resolve: (job) => {
+          clearInterval(timer);
+          resolve(job);
+        },
+        reject: (error) => {
+          clearInterval(timer);
+          reject(error);
+        },
+      });
+    });
+  }
+
+  function handleUploadProgress(job) {
+    if (job.playerId !== currentPlayer.value?.id) {
+      return;
+    }
+    if (job.status === "PROCESSING") {
+      uploadProgress.value = {
+        completedFiles: job.completedFiles,
+        totalFiles: job.totalFiles,
+      };
+      return;
+    }
+    const pending = uploadJobs.get(job.jobId);
+    if (!pending) {
+      uploadJobs.set(job.jobId, job);
+      return;
+    }
+    uploadJobs.delete(job.jobId);
+    if (job.status === "COMPLETED") {
+      pending.resolve(job);
+    } else {
+      pending.reject(new Error(job.error || "上傳失敗"));
+    }
+  }
+
+  function addUploadedImages(imageUrls) {
     if (!currentPlayer.value.imageUrls) {
       currentPlayer.value.imageUrls = [];
     }
-    currentPlayer.value.imageUrls.push(...response.data);
-    return response.data;
+    // 後端已略過玩家已有的圖片，這裡同樣避免重複顯示
+    const owned = new Set(currentPlayer.value.imageUrls);
+    currentPlayer.value.imageUrls.push(...imageUrls.filter((url) => !owned.has(url)));
   }
 
   async function deleteImage(imageUrl) {
@@ -240,133 +332,224 @@ export const useGameStore = defineStore("game", () => {
     }
   }
 
-  async function connectWebSocket(roomId, playerId) {
-    connection.value = await websocket.connect(roomId, playerId, {
-      onRoomUpdate: (updatedRoom) => {
-        // 保存之前的玩家列表（用於檢測新玩家）
-        const previousPlayerIds = room.value?.players?.map((p) => p.id) || [];
-        const currentPlayerIds = updatedRoom.players?.map((p) => p.id) || [];
-
-        // 找出新加入的玩家
-        const newPlayerIds = currentPlayerIds.filter(
-          (id) => !previousPlayerIds.includes(id)
-        );
-        const newPlayers =
-          updatedRoom.players?.filter((p) => newPlayerIds.includes(p.id)) || [];
+  function handleRoomUpdate(updatedRoom) {
+    // 保存之前的玩家列表（用於檢測新玩家）
+    const previousPlayerIds = room.value?.players?.map((p) => p.id) || [];
+    const currentPlayerIds = updatedRoom.players?.map((p) => p.id) || [];
 
-        // 更新房間資訊（使用新的對象引用以確保響應式更新，包括 players 數組）
-        room.value = {
-          ...updatedRoom,
-          players: updatedRoom.players ? [...updatedRoom.players] : [],
-        };
-        triggerRef(room);
+    // 找出新加入的玩家
+    const newPlayerIds = currentPlayerIds.filter(
+      (id) => !previousPlayerIds.includes(id)
+    );
+    const newPlayers =
+      updatedRoom.players?.filter((p) => newPlayerIds.includes(p.id)) || [];
 
-        // 更新當前玩家資訊
-        // 如果正在從 session 恢復玩家身份（fetchRoom 中），跳過此更新，避免覆蓋
-        if (isRestoringPlayer.value) {
-          console.log("onRoomUpdate: 正在恢復玩家身份，跳過更新");
-          return;
-        }
+    // 更新房間資訊（使用新的對象引用以確保響應式更新，包括 players 數組）
+    room.value = {
+      ...updatedRoom,
+      players: updatedRoom.players ? [...updatedRoom.players] : [],
+    };
+    triggerRef(room);
 
-        if (currentPlayer.value && currentPlayer.value.id) {
-          // 如果已有 currentPlayer，只更新其資訊，不改變身份
-          const updated = updatedRoom.players.find(
-            (p) => p.id === currentPlayer.value.id
-          );
-          if (updated) {
-            // 只更新資訊，不改變身份（創建新對象以確保響應式更新）
-            currentPlayer.value = { ...updated };
-            triggerRef(currentPlayer);
+    // 更新當前玩家資訊
+    // 如果正在從 session 恢復玩家身份（fetchRoom 中），跳過此更新，避免覆蓋
+    if (isRestoringPlayer.value) {
+      console.log("onRoomUpdate: 正在恢復玩家身份，跳過更新");
+      return;
+    }
+
+    if (currentPlayer.value && currentPlayer.value.id) {
+      // 如果已有 currentPlayer，只更新其資訊，不改變身份
+      const updated = updatedRoom.players.find(
+        (p) => p.id === currentPlayer.value.id
+      );
+      if (updated) {
+        // 只更新資訊，不改變身份（創建新對象以確保響應式更新）
+        currentPlayer.value = { ...updated };
+        triggerRef(currentPlayer);
+        console.log(
+          "onRoomUpdate: 更新 currentPlayer 資訊:",
+          updated.nickname,
+          updated.isHost ? "(房主)" : "",
+          "分數:",
+          updated.score
+        );
+      } else {
+        // 如果 currentPlayer 不在房間中，才嘗試從 session 恢復
+        // 這通常發生在玩家被踢出或離開房間時
+        console.warn(
+          "onRoomUpdate: currentPlayer 不在房間中，嘗試從 session 恢復"
+        );
+        api
+          .get("/rooms/session/player-id")
+          .then((playerIdResponse) => {
+            const savedPlayerId = playerIdResponse.data;
             console.log(
-              "onRoomUpdate: 更新 currentPlayer 資訊:",
-              updated.nickname,
-              updated.isHost ? "(房主)" : "",
-              "分數:",
-              updated.score
-            );
-          } else {
-            // 如果 currentPlayer 不在房間中，才嘗試從 session 恢復
-            // 這通常發生在玩家被踢出或離開房間時
-            console.warn(
-              "onRoomUpdate: currentPlayer 不在房間中，嘗試從 session 恢復"
+              "onRoomUpdate: 從 session 獲取的玩家 ID:",
+              savedPlayerId
             );
-            api
-              .get("/rooms/session/player-id")
-              .then((playerIdResponse) => {
-                const savedPlayerId = playerIdResponse.data;
+            if (savedPlayerId && updatedRoom.players) {
+              const foundPlayer = updatedRoom.players.find(
+                (p) => p.id === savedPlayerId
+              );
+              if (foundPlayer) {
                 console.log(
-                  "onRoomUpdate: 從 session 獲取的玩家 ID:",
-                  savedPlayerId
+                  "onRoomUpdate: 從 session 恢復 currentPlayer:",
+                  foundPlayer.nickname,
+                  foundPlayer.isHost ? "(房主)" : ""
                 );
-                if (savedPlayerId && updatedRoom.players) {
-                  const foundPlayer = updatedRoom.players.find(
-                    (p) => p.id === savedPlayerId
-                  );
-                  if (foundPlayer) {
-                    console.log(
-                      "onRoomUpdate: 從 session 恢復 currentPlayer:",
-                      foundPlayer.nickname,
-                      foundPlayer.isHost ? "(房主)" : ""
-                    );
-                    currentPlayer.value = foundPlayer;
-                  } else {
-                    console.warn(
-                      "onRoomUpdate: Session 中的玩家 ID 在房間中找不到"
-                    );
-                    currentPlayer.value = null;
-                  }
-                } else {
-                  currentPlayer.value = null;
-                }
-              })
-              .catch((error) => {
-                console.error(
-                  "onRoomUpdate: 無法從 session 獲取玩家 ID:",
-                  error
+                currentPlayer.value = foundPlayer;
+              } else {
+                console.warn(
+                  "onRoomUpdate: Session 中的玩家 ID 在房間中找不到"
                 );
                 currentPlayer.value = null;
-              });
-          }
-        } else {
-          // 如果 currentPlayer 為 null，才從 session 恢復
-          console.log("onRoomUpdate: currentPlayer 為 null，從 session 恢復");
-          api
-            .get("/rooms/session/player-id")
-            .then((playerIdResponse) => {
-              const savedPlayerId = playerIdResponse.data;
+              }
+            } else {
+              currentPlayer.value = null;
+            }
+          })
+          .catch((error) => {
+            console.error(
+              "onRoomUpdate: 無法從 session 獲取玩家 ID:",
+              error
+            );
+            currentPlayer.value = null;
+          });
+      }
+    } else {
+      // 如果 currentPlayer 為 null，才從 session 恢復
+      console.log("onRoomUpdate: currentPlayer 為 null，從 session 恢復");
+      api
+        .get("/rooms/session/player-id")
+        .then((playerIdResponse) => {
+          const savedPlayerId = playerIdResponse.data;
+          console.log(
+            "onRoomUpdate: 從 session 獲取的玩家 ID:",
+            savedPlayerId
+          );
+          if (savedPlayerId && updatedRoom.players) {
+            const foundPlayer = updatedRoom.players.find(
+              (p) => p.id === savedPlayerId
+            );
+            if (foundPlayer) {
               console.log(
-                "onRoomUpdate: 從 session 獲取的玩家 ID:",
-                savedPlayerId
+                "onRoomUpdate: 從 session 恢復 currentPlayer:",
+                foundPlayer.nickname,
+                foundPlayer.isHost ? "(房主)" : ""
               );
-              if (savedPlayerId && updatedRoom.players) {
-                const foundPlayer = updatedRoom.players.find(
-                  (p) => p.id === savedPlayerId
-                );
-                if (foundPlayer) {
-                  console.log(
-                    "onRoomUpdate: 從 session 恢復 currentPlayer:",
-                    foundPlayer.nickname,
-                    foundPlayer.isHost ? "(房主)" : ""
-                  );
-                  currentPlayer.value = foundPlayer;
-                } else {
-                  console.warn(
-                    "onRoomUpdate: Session 中的玩家 ID 在房間中找不到"
-                  );
-                }
-              }
-            })
-            .catch((error) => {
-              console.error("onRoomUpdate: 無法從 session 獲取玩家 ID:", error);
-            });
-        }
+              currentPlayer.value = foundPlayer;
+            } else {
+              console.warn(
+                "onRoomUpdate: Session 中的玩家 ID 在房間中找不到"
+              );
+            }
+          }
+        })
+        .catch((error) => {
+          console.error("onRoomUpdate: 無法從 session 獲取玩家 ID:", error);
+        });
+    }
+
+    // 如果有新玩家加入，觸發事件（供組件監聽）
+    if (newPlayers.length > 0) {
+      // 可以通過事件或回調通知組件
+      // 這裡我們在組件層處理
+    }
+  }
+
+  // 房間增量更新：只有版本連續時才套用，發現缺漏時重新取得完整快照
+  const pendingRoomDeltas = [];
+  let resyncingRoom = false;
+
+  function handleRoomMessage(message) {
+    if (message.type !== "DELTA") {
+      // 完整快照，忽略比本地更舊的版本
+      if (
+        room.value?.version != null &&
+        message.version != null &&
+        message.version < room.value.version
+      ) {
+        return;
+      }
+      handleRoomUpdate(message);
+      return;
+    }
+
+    if (resyncingRoom) {
+      pendingRoomDeltas.push(message);
+      return;
+    }
+    const currentVersion = room.value?.version;
+    if (currentVersion != null && message.version <= currentVersion) {
+      return; // 已包含在目前的狀態中
+    }
+    if (currentVersion == null || message.version !== currentVersion + 1) {
+      console.warn("房間更新版本不連續，重新取得房間快照", {
+        currentVersion,
+        version: message.version,
+      });
+      pendingRoomDeltas.push(message);
+      resyncRoom(message.roomId);
+      return;
+    }
+    handleRoomUpdate(applyRoomDelta(room.value, message));
+  }
+
+  async function resyncRoom(roomId) {
+    resyncingRoom = true;
+    let synced = false;
+    try {
+      const response = await api.get(`/rooms/${roomId}`);
+      handleRoomUpdate(response.data);
+      synced = true;
+    } catch (error) {
+      console.error("重新取得房間快照失敗:", error);
+    } finally {
+      resyncingRoom = false;
+    }
+    // 套用快照之後到達的增量更新
+    const deltas = pendingRoomDeltas
+      .splice(0)
+      .sort((a, b) => a.version - b.version);
+    if (synced) {
+      deltas.forEach(handleRoomMessage);
+    }
+  }
 
-        // 如果有新玩家加入，觸發事件（供組件監聽）
-        if (newPlayers.length > 0) {
-          // 可以通過事件或回調通知組件
-          // 這裡我們在組件層處理
+  function applyRoomDelta(current, delta) {
+    const removed = delta.removedPlayerIds || [];
+    const changes = delta.players || [];
+    const players = (current.players || [])
+      .filter((p) => !removed.includes(p.id))
+      .map((p) => {
+        const change = changes.find((c) => c.id === p.id);
+        const merged = change ? { ...p, ...change } : p;
+        // 房主轉移時，其他玩家不再是房主
+        if (delta.hostId && merged.id !== delta.hostId && merged.isHost) {
+          return { ...merged, isHost: false };
         }
-      },
+        return merged;
+      });
+    changes.forEach((change) => {
+      if (!players.some((p) => p.id === change.id)) {
+        players.push({ roomId: current.id, imageUrls: [], ...change });
+      }
+    });
+
+    return {
+      ...current,
+      status: delta.status ?? current.status,
+      currentRound: delta.currentRound ?? current.currentRound,
+      hostId: delta.hostId ?? current.hostId,
+      players,
+      version: delta.version,
+    };
+  }
+
+  async function connectWebSocket(roomId, playerId) {
+    connection.value = await websocket.connect(roomId, playerId, {
+      onRoomUpdate: handleRoomMessage,
       onRoundStart: (round) => {
         console.log("=== onRoundStart: 收到回合更新 ===", {
           roundId: round?.id,
@@ -429,7 +612,7 @@ export const useGameStore = defineStore("game", () => {
           phase: round.phase || null,
           votes: round.votes ? { ...round.votes } : {},
           isFinished: round.isFinished || false,
-          votingTimeLeft: round.votingTimeLeft || null,
+          votingTimeLeft: round.votingTimeLeft ?? null,
           voteResults: round.voteResults ? { ...round.voteResults } : null,
         };
 
@@ -486,7 +669,7 @@ export const useGameStore = defineStore("game", () => {
           phase: round.phase || null,
           votes: round.votes ? { ...round.votes } : {},
           isFinished: round.isFinished || false,
-          votingTimeLeft: round.votingTimeLeft || null,
+          votingTimeLeft: round.votingTimeLeft ?? null,
           voteResults: round.voteResults ? { ...round.voteResults } : null,
         };
 
@@ -510,6 +693,7 @@ export const useGameStore = defineStore("game", () => {
           player.isOnline = false;
         }
       },
+      onUploadProgress: handleUploadProgress,
     });
   }
 
@@ -650,6 +834,7 @@ export const useGameStore = defineStore("game", () => {
     room,
     currentPlayer,
     currentRound,
+    uploadProgress,
     isHost,
     allPlayersReady,
     canStartGame,